@@ -0,0 +1,105 @@
+package com.example.trackingnumberapi.benchmark;
+
+import com.example.trackingnumberapi.service.Base36Codec;
+import com.example.trackingnumberapi.service.TrackingIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering and parsing tracking numbers, and of decoding the fields packed into an ID.
+ * The JDK-based methods are the baseline the codec replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base36CodecBenchmark {
+
+    private final TrackingIdGenerator generator = new TrackingIdGenerator(1);
+    private final char[] buffer = new char[Base36Codec.MAX_LENGTH];
+
+    private long id;
+    private String variableWidthNumber;
+    private String fixedWidthNumber;
+
+    @Setup
+    public void setUp() {
+        id = generator.nextId();
+        variableWidthNumber = Base36Codec.VARIABLE_WIDTH.encode(id);
+        fixedWidthNumber = Base36Codec.FIXED_WIDTH.encode(id);
+    }
+
+    @Benchmark
+    public String encode_jdkBaseline() {
+        return Long.toString(id, 36).toUpperCase();
+    }
+
+    @Benchmark
+    public String encode_variableWidth() {
+        return Base36Codec.VARIABLE_WIDTH.encode(id);
+    }
+
+    @Benchmark
+    public String encode_fixedWidth() {
+        return Base36Codec.FIXED_WIDTH.encode(id);
+    }
+
+    @Benchmark
+    public char[] encode_intoBuffer() {
+        Base36Codec.VARIABLE_WIDTH.encodeTo(id, buffer, 0);
+        return buffer;
+    }
+
+    @Benchmark
+    public boolean regexValidation_baseline() {
+        return variableWidthNumber.matches("^[A-Z0-9]{1,16}$");
+    }
+
+    @Benchmark
+    public long decode_jdkBaseline() {
+        return Long.parseLong(variableWidthNumber, 36);
+    }
+
+    @Benchmark
+    public long decode_variableWidth() {
+        return Base36Codec.decode(variableWidthNumber);
+    }
+
+    @Benchmark
+    public long decode_fixedWidth() {
+        return Base36Codec.decode(fixedWidthNumber);
+    }
+
+    @Benchmark
+    public long getTimestampFromId() {
+        return generator.getTimestampFromId(id);
+    }
+
+    @Benchmark
+    public long getWorkerIdFromId() {
+        return generator.getWorkerIdFromId(id);
+    }
+
+    @Benchmark
+    public long getSequenceFromId() {
+        return generator.getSequenceFromId(id);
+    }
+
+    @Benchmark
+    public OffsetDateTime getDateTimeFromId() {
+        return generator.getDateTimeFromId(id);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.trackingnumberapi.benchmark;
+
+import com.example.trackingnumberapi.service.LockFreeTrackingIdGenerator;
+import com.example.trackingnumberapi.service.StripedTrackingIdGenerator;
+import com.example.trackingnumberapi.service.TrackingIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID generation throughput for every generator mode, uncontended and contended.
+ * A single lane is capped at 4096 IDs per millisecond, so at saturation these numbers include
+ * the time spent waiting for the next millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackingIdGeneratorBenchmark {
+
+    @Param({"synchronized", "lock-free", "striped"})
+    public String mode;
+
+    private TrackingIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = switch (mode) {
+            case "synchronized" -> new TrackingIdGenerator(1);
+            case "lock-free" -> new LockFreeTrackingIdGenerator(1);
+            case "striped" -> new StripedTrackingIdGenerator(1, 4);
+            default -> throw new IllegalArgumentException(mode);
+        };
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextId_1thread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextId_4threads() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long nextId_maxThreads() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String nextIdBase36_1thread() {
+        return generator.nextIdBase36();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long[] nextIds100_4threads() {
+        return generator.nextIds(100);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.trackingnumberapi.benchmark;
+
+import com.example.trackingnumberapi.TrackingNumberApiApplication;
+import com.example.trackingnumberapi.model.dto.TrackingNumberRequestParams;
+import com.example.trackingnumberapi.model.dto.TrackingNumberResponse;
+import com.example.trackingnumberapi.service.TrackingNumberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full generate-and-save path of {@link TrackingNumberService} against an embedded in-memory H2 database.
+ * The Spring context is started without the web server; SQL logging is switched off so it does not dominate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TrackingNumberServiceBenchmark {
+
+    @Param({"synchronized", "lock-free"})
+    public String generatorMode;
+
+    @Param({"false", "true"})
+    public String writeBehind;
+
+    private ConfigurableApplicationContext context;
+    private TrackingNumberService service;
+    private TrackingNumberRequestParams params;
+    private List<TrackingNumberRequestParams> bulkParams;
+
+    @Setup
+    public void setUp() {
+        // Command-line arguments take precedence over application.properties
+        context = new SpringApplicationBuilder(TrackingNumberApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.trackingnumberapi=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql=WARN",
+                        "--tracking.generator.mode=" + generatorMode,
+                        "--tracking.persistence.write-behind.enabled=" + writeBehind);
+        service = context.getBean(TrackingNumberService.class);
+
+        params = new TrackingNumberRequestParams();
+        params.setOriginCountryId("MY");
+        params.setDestinationCountryId("ID");
+        params.setWeight(new BigDecimal("1.234"));
+        params.setCreatedAt(OffsetDateTime.parse("2024-05-21T10:00:00+08:00"));
+        params.setCustomerId(UUID.fromString("de619854-b59b-425e-9db4-943979e1bd49"));
+        params.setCustomerName("RedBox Logistics");
+        params.setCustomerSlug("redbox-logistics");
+
+        bulkParams = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            bulkParams.add(params);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TrackingNumberResponse generateAndSave_1thread() {
+        return service.generateAndSaveTrackingNumber(params);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TrackingNumberResponse generateAndSave_8threads() {
+        return service.generateAndSaveTrackingNumber(params);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<TrackingNumberResponse> generateAndSaveBulk100_1thread() {
+        return service.generateAndSaveTrackingNumbers(bulkParams);
+    }
+}
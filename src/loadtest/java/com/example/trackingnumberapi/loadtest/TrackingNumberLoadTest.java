@@ -0,0 +1,298 @@
+package com.example.trackingnumberapi.loadtest;
+
+import com.example.trackingnumberapi.TrackingNumberApiApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of GET /api/v1/next-tracking-number.
+ * <p>
+ * Boots the whole application (Tomcat, controller, service, H2) on a random port with its own in-memory database
+ * and sends requests at a fixed arrival rate (open model): request {@code i} is due at {@code start + i / rate}
+ * whether or not earlier requests have completed. Latency is measured from the time a request was due, not from
+ * the time it was sent, so a stalled server shows up in the percentiles instead of silently lowering the rate.
+ * At most {@code concurrency} requests are in flight; requests due while that many are outstanding are not sent
+ * and are reported as dropped.
+ * <p>
+ * Run with {@code mvn -Ploadtest verify}. Settings are read from system properties:
+ * loadtest.rate (requests/s), loadtest.duration and loadtest.warmup (seconds), loadtest.concurrency and
+ * loadtest.report (JSON report path). Program arguments are passed to the application, in Spring Boot
+ * command-line form (e.g. {@code --spring.jpa.show-sql=false}), and take precedence over application.properties.
+ */
+public class TrackingNumberLoadTest {
+
+    private static final int CUSTOMERS = 100;
+    private static final String[] COUNTRIES = {"MY", "ID", "SG", "TH", "VN", "PH"};
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Effective values of these properties are copied into the report, so runs with different settings can be told apart
+    private static final List<String> REPORTED_PROPERTIES = List.of(
+            "spring.jpa.show-sql",
+            "spring.jpa.properties.hibernate.format_sql",
+            "logging.level.org.hibernate.SQL",
+            "logging.level.org.hibernate.type.descriptor.sql",
+            "logging.level.com.example.trackingnumberapi",
+            "spring.threads.virtual.enabled",
+            "spring.datasource.hikari.maximum-pool-size",
+            "tracking.generator.mode",
+            "tracking.generator.buffer.enabled",
+            "tracking.persistence.write-behind.enabled",
+            "tracking.persistence.write-behind.ack",
+            "tracking.idempotency.enabled");
+
+    private record Customer(UUID id, String name, String slug) {
+    }
+
+    /**
+     * Outcome of one phase (warm-up or measurement). Updated from the HTTP client's completion threads.
+     */
+    private static final class PhaseResult {
+        // Microseconds; auto-resizing, so a pathological outlier is recorded rather than rejected
+        final Histogram latency = new ConcurrentHistogram(3);
+        Histogram latencySnapshot;
+        final LongAdder sent = new LongAdder();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        long elapsedNanos;
+
+        void record(long dueNanos, HttpResponse<Void> response, Throwable error) {
+            latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueNanos));
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                errors.computeIfAbsent(cause.getClass().getSimpleName(), k -> new LongAdder()).increment();
+            } else if (response.statusCode() == 200) {
+                succeeded.increment();
+            } else {
+                errors.computeIfAbsent("HTTP " + response.statusCode(), k -> new LongAdder()).increment();
+            }
+        }
+
+        long errorCount() {
+            return errors.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "500"));
+        int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup", 10);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 256);
+        Path reportPath = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+        if (rate <= 0 || durationSeconds <= 0 || warmupSeconds < 0 || concurrency <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid load test settings: rate=%s, duration=%d, warmup=%d, concurrency=%d",
+                    rate, durationSeconds, warmupSeconds, concurrency));
+        }
+
+        List<String> applicationArgs = new ArrayList<>(Arrays.asList(args));
+        // Spring Boot joins repeated command-line options with commas, so defaults are only added when not overridden
+        addDefault(applicationArgs, "server.port", "0");
+        addDefault(applicationArgs, "spring.datasource.url",
+                "jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TrackingNumberApiApplication.class)
+                .run(applicationArgs.toArray(String[]::new));
+        ExecutorService clientExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Environment environment = context.getEnvironment();
+            URI endpoint = URI.create("http://localhost:" + environment.getRequiredProperty("local.server.port")
+                    + "/api/v1/next-tracking-number");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(REQUEST_TIMEOUT)
+                    .executor(clientExecutor)
+                    .build();
+            List<Customer> customers = new ArrayList<>(CUSTOMERS);
+            for (int i = 0; i < CUSTOMERS; i++) {
+                customers.add(new Customer(UUID.randomUUID(), "Load Test Customer " + i, "load-test-customer-" + i));
+            }
+            Semaphore inFlight = new Semaphore(concurrency);
+
+            if (warmupSeconds > 0) {
+                System.out.printf("Warming up: %s req/s for %d s (max %d in flight)%n", rate, warmupSeconds, concurrency);
+                PhaseResult warmup = runPhase(client, endpoint, customers, rate, warmupSeconds, inFlight, concurrency);
+                System.out.printf("Warm-up done: %d succeeded, %d errors, %d dropped%n",
+                        warmup.succeeded.sum(), warmup.errorCount(), warmup.dropped.sum());
+            }
+
+            System.out.printf("Measuring: %s req/s for %d s (max %d in flight)%n", rate, durationSeconds, concurrency);
+            PhaseResult result = runPhase(client, endpoint, customers, rate, durationSeconds, inFlight, concurrency);
+
+            Map<String, Object> report = buildReport(result, rate, durationSeconds, warmupSeconds, concurrency,
+                    applicationArgs, environment);
+            Files.createDirectories(reportPath.toAbsolutePath().getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportPath.toFile(), report);
+            printSummary(result);
+            System.out.println("Report written to " + reportPath.toAbsolutePath());
+        } finally {
+            context.close();
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    private static PhaseResult runPhase(HttpClient client, URI endpoint, List<Customer> customers, double rate,
+                                        int seconds, Semaphore inFlight, int concurrency) throws InterruptedException {
+        PhaseResult result = new PhaseResult();
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * intervalNanos);
+            if (due - end >= 0) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // Behind schedule (wait <= 0) the request is sent at once; the delay is part of its measured latency
+            if (!inFlight.tryAcquire()) {
+                result.dropped.increment();
+                continue;
+            }
+            result.sent.increment();
+            client.sendAsync(request(endpoint, customers), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        // Release only after recording, so the drain below also waits for the histogram writes
+                        try {
+                            result.record(due, response, error);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+        }
+
+        // Let the phase's requests finish, so they are counted here and do not overlap the next phase
+        if (inFlight.tryAcquire(concurrency, REQUEST_TIMEOUT.toSeconds() * 2, TimeUnit.SECONDS)) {
+            inFlight.release(concurrency);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        // Requests still outstanding after the drain timeout keep recording; the report reads a stable copy
+        result.latencySnapshot = result.latency.copy();
+        return result;
+    }
+
+    private static HttpRequest request(URI endpoint, List<Customer> customers) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Customer customer = customers.get(random.nextInt(customers.size()));
+        String query = "origin_country_id=" + COUNTRIES[random.nextInt(COUNTRIES.length)]
+                + "&destination_country_id=" + COUNTRIES[random.nextInt(COUNTRIES.length)]
+                + "&weight=" + BigDecimal.valueOf(random.nextInt(1, 100_000), 3).toPlainString()
+                + "&created_at=" + encode(OffsetDateTime.now(ZoneOffset.ofHours(8)).toString())
+                + "&customer_id=" + customer.id()
+                + "&customer_name=" + encode(customer.name())
+                + "&customer_slug=" + customer.slug();
+        return HttpRequest.newBuilder(URI.create(endpoint + "?" + query))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void addDefault(List<String> args, String name, String value) {
+        String prefix = "--" + name + "=";
+        if (args.stream().noneMatch(arg -> arg.startsWith(prefix))) {
+            args.add(prefix + value);
+        }
+    }
+
+    private static Map<String, Object> buildReport(PhaseResult result, double rate, int durationSeconds, int warmupSeconds,
+                                                   int concurrency, List<String> applicationArgs, Environment environment) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("targetRatePerSecond", rate);
+        config.put("durationSeconds", durationSeconds);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("concurrency", concurrency);
+        config.put("applicationArgs", applicationArgs);
+
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String name : REPORTED_PROPERTIES) {
+            properties.put(name, environment.getProperty(name));
+        }
+
+        Histogram latency = result.latencySnapshot;
+        Map<String, Object> latencyMs = new LinkedHashMap<>();
+        latencyMs.put("mean", latency.getMean() / 1000.0);
+        latencyMs.put("p50", latency.getValueAtPercentile(50) / 1000.0);
+        latencyMs.put("p90", latency.getValueAtPercentile(90) / 1000.0);
+        latencyMs.put("p99", latency.getValueAtPercentile(99) / 1000.0);
+        latencyMs.put("p999", latency.getValueAtPercentile(99.9) / 1000.0);
+        latencyMs.put("max", latency.getMaxValue() / 1000.0);
+
+        Map<String, Long> errors = new TreeMap<>();
+        result.errors.forEach((type, count) -> errors.put(type, count.sum()));
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("sent", result.sent.sum());
+        results.put("succeeded", result.succeeded.sum());
+        results.put("errorCount", result.errorCount());
+        results.put("errors", errors);
+        results.put("dropped", result.dropped.sum());
+        results.put("elapsedSeconds", result.elapsedNanos / 1e9);
+        results.put("throughputPerSecond", result.succeeded.sum() / (result.elapsedNanos / 1e9));
+        results.put("latencyMs", latencyMs);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("config", config);
+        report.put("applicationProperties", properties);
+        report.put("results", results);
+        return report;
+    }
+
+    private static void printSummary(PhaseResult result) {
+        Histogram latency = result.latencySnapshot;
+        System.out.printf("Sent %d, succeeded %d, errors %d %s, dropped %d%n",
+                result.sent.sum(), result.succeeded.sum(), result.errorCount(), result.errors, result.dropped.sum());
+        System.out.printf("Throughput %.1f req/s%n", result.succeeded.sum() / (result.elapsedNanos / 1e9));
+        System.out.printf("Latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+                latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(90) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0, latency.getValueAtPercentile(99.9) / 1000.0,
+                latency.getMaxValue() / 1000.0);
+    }
+}
@@ -1,23 +1,97 @@
 package com.example.trackingnumberapi.config;
 
+import com.example.trackingnumberapi.service.Base36Codec;
+import com.example.trackingnumberapi.service.ClockRegressionMode;
+import com.example.trackingnumberapi.service.LockFreeTrackingIdGenerator;
+import com.example.trackingnumberapi.service.MonotonicTrackingClock;
+import com.example.trackingnumberapi.service.StripedTrackingIdGenerator;
+import com.example.trackingnumberapi.service.TrackingClock;
 import com.example.trackingnumberapi.service.TrackingIdGenerator;
+import com.example.trackingnumberapi.service.WorkerLeaseManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
+@EnableScheduling // Retention runs (see TrackingNumberRetentionService)
 public class AppConfig {
 
     /**
      * Defines trackingIdGenerator as a Spring Bean.
      * Spring will inject the 'tracking.worker.id' value from application.properties
      * into the 'workerId' parameter of the trackingIdGenerator constructor.
+     * The 'tracking.generator.mode' property selects the implementation:
+     * 'synchronized' (default), 'lock-free' (CAS-based, see {@link LockFreeTrackingIdGenerator})
+     * or 'striped' ('tracking.generator.lanes' independent sequences, see {@link StripedTrackingIdGenerator}).
+     * 'tracking.generator.clock-source' and 'tracking.generator.clock-regression.*' select the clock and
+     * how a clock that moved backwards is handled (see {@link ClockRegressionMode}).
+     * With 'tracking.worker.lease.enabled=true' the worker ID is leased from the database instead of read from
+     * 'tracking.worker.id', and the generator stops issuing IDs if the lease is lost (see {@link WorkerLeaseManager}).
      * This provides an explicit way for Spring to manage and instantiate this bean.
      */
     @Bean // Marks the method's return value as a Spring-managed bean
-    public TrackingIdGenerator trackingIdGenerator(@Value("${tracking.worker.id}") long workerId) {
+    public TrackingIdGenerator trackingIdGenerator(@Value("${tracking.worker.id}") long workerId,
+                                                   @Value("${tracking.generator.mode:synchronized}") String generatorMode,
+                                                   @Value("${tracking.generator.lanes:4}") int lanes,
+                                                   TrackingClock trackingClock,
+                                                   @Value("${tracking.generator.clock-regression.mode:strict}") String clockRegressionMode,
+                                                   @Value("${tracking.generator.clock-regression.max-ms:10}") long maxClockRegressionMs,
+                                                   ObjectProvider<WorkerLeaseManager> workerLeaseManager) {
+        WorkerLeaseManager leaseManager = workerLeaseManager.getIfAvailable();
+        long effectiveWorkerId = workerId;
+        if (leaseManager != null) {
+            long maxWorkerId = "striped".equals(generatorMode)
+                    ? StripedTrackingIdGenerator.maxWorkerId(lanes)
+                    : TrackingIdGenerator.MAX_WORKER_ID;
+            effectiveWorkerId = leaseManager.claim(maxWorkerId);
+        }
+
         // Spring will call this method to create the IdGenerator instance,
         // providing the workerId value from application.properties.
-        return new TrackingIdGenerator(workerId);
+        TrackingIdGenerator generator = switch (generatorMode) {
+            case "synchronized" -> new TrackingIdGenerator(effectiveWorkerId);
+            case "lock-free" -> new LockFreeTrackingIdGenerator(effectiveWorkerId);
+            case "striped" -> new StripedTrackingIdGenerator(effectiveWorkerId, lanes);
+            default -> throw new IllegalArgumentException(String.format(
+                    "Unknown tracking.generator.mode '%s'. Supported: synchronized, lock-free, striped", generatorMode));
+        };
+        generator.setClock(trackingClock);
+        generator.setClockRegressionTolerance(switch (clockRegressionMode) {
+            case "strict" -> ClockRegressionMode.STRICT;
+            case "wait" -> ClockRegressionMode.WAIT;
+            case "borrow" -> ClockRegressionMode.BORROW;
+            default -> throw new IllegalArgumentException(String.format(
+                    "Unknown tracking.generator.clock-regression.mode '%s'. Supported: strict, wait, borrow", clockRegressionMode));
+        }, maxClockRegressionMs);
+        if (leaseManager != null) {
+            leaseManager.attach(generator);
+        }
+        return generator;
+    }
+
+    /**
+     * Time source of the ID generator: 'system' (the wall clock) or 'monotonic' (System.nanoTime() anchored to the wall clock,
+     * re-anchored forward every 'tracking.generator.clock-resync-interval-ms', see {@link MonotonicTrackingClock}).
+     */
+    @Bean
+    public TrackingClock trackingClock(@Value("${tracking.generator.clock-source:system}") String clockSource,
+                                       @Value("${tracking.generator.clock-resync-interval-ms:1000}") long resyncIntervalMs) {
+        return switch (clockSource) {
+            case "system" -> TrackingClock.SYSTEM;
+            case "monotonic" -> new MonotonicTrackingClock(resyncIntervalMs);
+            default -> throw new IllegalArgumentException(String.format(
+                    "Unknown tracking.generator.clock-source '%s'. Supported: system, monotonic", clockSource));
+        };
+    }
+
+    /**
+     * Codec used to render tracking IDs as Base36 tracking numbers.
+     * With 'tracking.number.fixed-width=true' numbers are zero-padded to 13 characters so they sort in time order.
+     */
+    @Bean
+    public Base36Codec trackingNumberCodec(@Value("${tracking.number.fixed-width:false}") boolean fixedWidth) {
+        return Base36Codec.of(fixedWidth);
     }
-}
\ No newline at end of file
+}
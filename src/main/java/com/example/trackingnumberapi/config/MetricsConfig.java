@@ -0,0 +1,136 @@
+package com.example.trackingnumberapi.config;
+
+import com.example.trackingnumberapi.service.AdaptiveConcurrencyLimiter;
+import com.example.trackingnumberapi.service.CustomerRateLimiter;
+import com.example.trackingnumberapi.service.JournalTrackingNumberStore;
+import com.example.trackingnumberapi.service.PreMintedIdBuffer;
+import com.example.trackingnumberapi.service.TrackingIdGenerator;
+import com.example.trackingnumberapi.service.TrackingNumberLookupService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the hot-path counters kept by {@link TrackingIdGenerator} and {@link TrackingNumberLookupService}
+ * as Micrometer meters (see /actuator/metrics and /actuator/prometheus).
+ * The counters themselves are LongAdders read only when metrics are scraped; the generator wait timers are
+ * only recorded when a thread actually had to wait.
+ */
+@Configuration
+public class MetricsConfig {
+
+    static final double[] LATENCY_PERCENTILES = {0.5, 0.99, 0.999};
+
+    @Bean
+    public MeterBinder trackingIdGeneratorMetrics(TrackingIdGenerator trackingIdGenerator) {
+        return registry -> {
+            Timer lockWait = Timer.builder("tracking.id.generator.lock.wait")
+                    .description("Time spent waiting for the contended generator lock")
+                    .publishPercentiles(LATENCY_PERCENTILES)
+                    .register(registry);
+            Timer sequenceWait = Timer.builder("tracking.id.generator.sequence.wait")
+                    .description("Time spent waiting for the next millisecond after the sequence was exhausted")
+                    .publishPercentiles(LATENCY_PERCENTILES)
+                    .register(registry);
+            trackingIdGenerator.setWaitRecorders(
+                    nanos -> lockWait.record(nanos, TimeUnit.NANOSECONDS),
+                    nanos -> sequenceWait.record(nanos, TimeUnit.NANOSECONDS));
+
+            FunctionCounter.builder("tracking.id.generator.sequence.exhausted", trackingIdGenerator, TrackingIdGenerator::getSequenceExhaustedCount)
+                    .description("Number of times the 12-bit sequence was exhausted within one millisecond")
+                    .register(registry);
+            FunctionCounter.builder("tracking.id.generator.clock.regressions", trackingIdGenerator, TrackingIdGenerator::getClockRegressionCount)
+                    .description("Number of times the clock was found to have moved backwards")
+                    .register(registry);
+            FunctionCounter.builder("tracking.id.generator.cas.retries", trackingIdGenerator, TrackingIdGenerator::getCasRetryCount)
+                    .description("Number of lost compare-and-set races in the lock-free generators")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder preMintedIdBufferMetrics(ObjectProvider<PreMintedIdBuffer> idBuffer) {
+        return registry -> idBuffer.ifAvailable(buffer -> {
+            Gauge.builder("tracking.id.buffer.size", buffer, PreMintedIdBuffer::size)
+                    .description("Pre-minted IDs currently in the buffer")
+                    .register(registry);
+            Gauge.builder("tracking.id.buffer.capacity", buffer, PreMintedIdBuffer::getCapacity)
+                    .register(registry);
+            FunctionCounter.builder("tracking.id.buffer.hits", buffer, PreMintedIdBuffer::getHitCount)
+                    .description("IDs served from the buffer")
+                    .register(registry);
+            FunctionCounter.builder("tracking.id.buffer.misses", buffer, PreMintedIdBuffer::getMissCount)
+                    .description("Requests that found the buffer empty and generated their ID directly")
+                    .register(registry);
+            FunctionCounter.builder("tracking.id.buffer.discarded", buffer, PreMintedIdBuffer::getDiscardedCount)
+                    .description("Buffered IDs dropped because they were older than max-age-ms")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder trackingNumberJournalMetrics(ObjectProvider<JournalTrackingNumberStore> journal) {
+        return registry -> journal.ifAvailable(store -> {
+            Gauge.builder("tracking.journal.records", store, JournalTrackingNumberStore::getRecordCount)
+                    .description("Records in the tracking number journal")
+                    .register(registry);
+            Gauge.builder("tracking.journal.segments", store, JournalTrackingNumberStore::getSegmentCount)
+                    .register(registry);
+            Gauge.builder("tracking.journal.fsync.pending", store, JournalTrackingNumberStore::getPendingFsyncCount)
+                    .description("Records appended but not yet forced to disk")
+                    .register(registry);
+            FunctionCounter.builder("tracking.journal.fsyncs", store, JournalTrackingNumberStore::getFsyncCount)
+                    .description("Forces of the journal to disk; each one covers every record appended since the previous one")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder admissionControlMetrics(ObjectProvider<CustomerRateLimiter> rateLimiter,
+                                               ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter) {
+        return registry -> {
+            rateLimiter.ifAvailable(limiter -> {
+                Gauge.builder("tracking.admission.rate.limit.customers", limiter, CustomerRateLimiter::getCustomerCount)
+                        .description("Customers with a rate limit bucket (sent requests recently)")
+                        .register(registry);
+                FunctionCounter.builder("tracking.admission.rate.limit.evictions", limiter, CustomerRateLimiter::getEvictionCount)
+                        .description("Idle rate limit buckets removed")
+                        .register(registry);
+            });
+            concurrencyLimiter.ifAvailable(limiter -> {
+                Gauge.builder("tracking.admission.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                        .description("Current adaptive concurrency limit")
+                        .register(registry);
+                Gauge.builder("tracking.admission.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                        .description("Requests currently admitted")
+                        .register(registry);
+            });
+        };
+    }
+
+    @Bean
+    public MeterBinder trackingNumberLookupMetrics(TrackingNumberLookupService lookupService) {
+        return registry -> {
+            FunctionCounter.builder("tracking.lookup.cache.hits", lookupService, TrackingNumberLookupService::getCacheHitCount)
+                    .register(registry);
+            FunctionCounter.builder("tracking.lookup.cache.misses", lookupService, TrackingNumberLookupService::getCacheMissCount)
+                    .register(registry);
+            FunctionCounter.builder("tracking.lookup.cache.evictions", lookupService, TrackingNumberLookupService::getCacheEvictionCount)
+                    .register(registry);
+            Gauge.builder("tracking.lookup.cache.size", lookupService, TrackingNumberLookupService::getCacheSize)
+                    .register(registry);
+            FunctionCounter.builder("tracking.lookup.bloom.negatives", lookupService, TrackingNumberLookupService::getBloomNegativeCount)
+                    .description("Lookups answered as 'not issued' by the Bloom filter without a database query")
+                    .register(registry);
+            FunctionCounter.builder("tracking.lookup.bloom.false.positives", lookupService, TrackingNumberLookupService::getBloomFalsePositiveCount)
+                    .description("Lookups the Bloom filter passed to the database that turned out not to exist")
+                    .register(registry);
+        };
+    }
+}
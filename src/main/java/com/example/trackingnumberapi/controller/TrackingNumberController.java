@@ -1,40 +1,72 @@
 package com.example.trackingnumberapi.controller;
 
+import com.example.trackingnumberapi.model.dto.BulkTrackingNumberRequest;
+import com.example.trackingnumberapi.model.dto.RetentionStatusResponse;
+import com.example.trackingnumberapi.model.dto.TrackingNumberDetailsResponse;
+import com.example.trackingnumberapi.model.dto.TrackingNumberExistenceRequest;
 import com.example.trackingnumberapi.model.dto.TrackingNumberRequestParams;
 import com.example.trackingnumberapi.model.dto.TrackingNumberResponse;
+import com.example.trackingnumberapi.service.TooManyRequestsException;
+import com.example.trackingnumberapi.service.TrackingNumberExportService;
+import com.example.trackingnumberapi.service.TrackingNumberLookupService;
+import com.example.trackingnumberapi.service.TrackingNumberRetentionService;
 import com.example.trackingnumberapi.service.TrackingNumberService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1")
 @Validated
-@Tag(name = "Tracking Number API", description = "Endpoints for generating unique tracking numbers")
+@Tag(name = "Tracking Number API", description = "Endpoints for generating and looking up unique tracking numbers")
 @Slf4j
 public class TrackingNumberController {
 
     private final TrackingNumberService trackingNumberService;
+    private final TrackingNumberLookupService trackingNumberLookupService;
+    private final TrackingNumberExportService trackingNumberExportService;
+    private final TrackingNumberRetentionService retentionService; // null unless retention is enabled
 
-    public TrackingNumberController(TrackingNumberService trackingNumberService) {
+    public TrackingNumberController(TrackingNumberService trackingNumberService, TrackingNumberLookupService trackingNumberLookupService,
+                                    TrackingNumberExportService trackingNumberExportService,
+                                    ObjectProvider<TrackingNumberRetentionService> retentionService) {
         this.trackingNumberService = trackingNumberService;
+        this.trackingNumberLookupService = trackingNumberLookupService;
+        this.trackingNumberExportService = trackingNumberExportService;
+        this.retentionService = retentionService.getIfAvailable();
     }
 
     @Operation(summary = "Generate a new unique tracking number",
@@ -45,6 +77,8 @@ public class TrackingNumberController {
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = TrackingNumberResponse.class))),
                     @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+                    @ApiResponse(responseCode = "409", description = "A request with the same idempotency key is still being processed"),
+                    @ApiResponse(responseCode = "429", description = "Customer rate limit or concurrency limit reached; retry after the Retry-After header's seconds"),
                     @ApiResponse(responseCode = "500", description = "Internal server error or failed to generate unique ID after retries")
             })
     @GetMapping("/next-tracking-number")
@@ -68,7 +102,11 @@ public class TrackingNumberController {
             @RequestParam String customer_name,
 
             @Parameter(description = "Customer's name in slug-case/kebab-case (e.g., 'redbox-logistics')", required = true)
-            @RequestParam String customer_slug
+            @RequestParam String customer_slug,
+
+            @Parameter(description = "Optional client-chosen key; retries with the same key return the original tracking number " +
+                    "(when tracking.idempotency.enabled=true)")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
         log.info("Received request to generate tracking number for customer: {}", customer_id);
 
@@ -82,9 +120,11 @@ public class TrackingNumberController {
         params.setCustomerSlug(customer_slug);
 
         try {
-            TrackingNumberResponse response = trackingNumberService.generateAndSaveTrackingNumber(params);
+            TrackingNumberResponse response = trackingNumberService.generateAndSaveTrackingNumber(params, idempotencyKey);
             log.info("Successfully generated tracking number: {} for customer: {}", response.getTrackingNumber(), customer_id);
             return ResponseEntity.ok(response);
+        } catch (TooManyRequestsException e) {
+            throw e; // Shed load without logging every rejected request
         } catch (ResponseStatusException e) {
             log.warn("API Error: {} - {}", e.getMessage(), e.getReason());
             throw e; // Re-throw to be handled by the @ExceptionHandler
@@ -94,9 +134,160 @@ public class TrackingNumberController {
         }
     }
 
+    @Operation(summary = "Generate tracking numbers for a batch of orders",
+            description = "Generates one unique tracking number per order in a single round trip. " +
+                    "IDs are reserved as one block and all records are stored in one batched transaction. " +
+                    "Responses are returned in the same order as the submitted orders (max " + BulkTrackingNumberRequest.MAX_ORDERS + ").",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully generated tracking numbers",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = TrackingNumberResponse.class)))),
+                    @ApiResponse(responseCode = "400", description = "Invalid request body"),
+                    @ApiResponse(responseCode = "429", description = "Customer rate limit reached (one request per order); retry after the Retry-After header's seconds"),
+                    @ApiResponse(responseCode = "500", description = "Internal server error")
+            })
+    @PostMapping("/tracking-numbers/bulk")
+    public ResponseEntity<List<TrackingNumberResponse>> generateTrackingNumbers(@Valid @RequestBody BulkTrackingNumberRequest request) {
+        log.info("Received bulk request to generate {} tracking numbers", request.getOrders().size());
+
+        try {
+            List<TrackingNumberResponse> responses = trackingNumberService.generateAndSaveTrackingNumbers(request.getOrders());
+            log.info("Successfully generated {} tracking numbers", responses.size());
+            return ResponseEntity.ok(responses);
+        } catch (ResponseStatusException e) {
+            log.warn("API Error: {} - {}", e.getMessage(), e.getReason());
+            throw e;
+        } catch (Exception e) {
+            log.error("An unexpected error occurred while generating {} tracking numbers: {}", request.getOrders().size(), e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred. Please try again later.");
+        }
+    }
+
+    @Operation(summary = "Look up an issued tracking number",
+            description = "Returns the order details stored for a tracking number. " +
+                    "Served from an in-memory cache when possible; numbers that were never issued are rejected by a Bloom filter " +
+                    "without a database query.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Tracking number found",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = TrackingNumberDetailsResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Tracking number was not issued")
+            })
+    @GetMapping("/tracking-numbers/{trackingNumber}")
+    public ResponseEntity<TrackingNumberDetailsResponse> getTrackingNumber(
+            @Parameter(description = "Tracking number (e.g., '2F7JH3K9QW')", required = true)
+            @PathVariable String trackingNumber) {
+        return trackingNumberLookupService.findByTrackingNumber(trackingNumber)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Tracking number not found."));
+    }
+
+    @Operation(summary = "Check whether tracking numbers were issued",
+            description = "Returns, for each submitted tracking number (max " + TrackingNumberExistenceRequest.MAX_TRACKING_NUMBERS + "), " +
+                    "whether it was issued. Numbers not answered by the Bloom filter or the cache are checked with a single query.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Map of tracking number to existence"),
+                    @ApiResponse(responseCode = "400", description = "Invalid request body")
+            })
+    @PostMapping("/tracking-numbers/exists")
+    public ResponseEntity<Map<String, Boolean>> checkTrackingNumbersExist(@Valid @RequestBody TrackingNumberExistenceRequest request) {
+        return ResponseEntity.ok(trackingNumberLookupService.existsByTrackingNumbers(request.getTrackingNumbers()));
+    }
+
+    @Operation(summary = "Lookup cache and Bloom filter statistics",
+            description = "Cache hits/misses/evictions/size, Bloom filter negatives (database queries avoided) and false positives.")
+    @GetMapping("/tracking-numbers/lookup-stats")
+    public ResponseEntity<Map<String, Long>> getLookupStats() {
+        return ResponseEntity.ok(trackingNumberLookupService.getStats());
+    }
+
+    @Operation(summary = "Export issued tracking numbers",
+            description = "Streams all tracking numbers generated in [from, to), optionally for one customer, oldest first. " +
+                    "The response is written while the rows are read, so exports of any size use constant memory.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "NDJSON (one object per line) or CSV with a header row"),
+                    @ApiResponse(responseCode = "400", description = "Invalid time window or format")
+            })
+    @GetMapping("/tracking-numbers/export")
+    public ResponseEntity<StreamingResponseBody> exportTrackingNumbers(
+            @Parameter(description = "Start of the window (inclusive, RFC 3339). Defaults to the beginning.", example = "2025-01-01T00:00:00Z")
+            @RequestParam(required = false) OffsetDateTime from,
+            @Parameter(description = "End of the window (exclusive, RFC 3339). Defaults to now.", example = "2025-02-01T00:00:00Z")
+            @RequestParam(required = false) OffsetDateTime to,
+            @Parameter(description = "Only export this customer's tracking numbers")
+            @RequestParam(name = "customer_id", required = false) UUID customerId,
+            @Parameter(description = "'ndjson' (default) or 'csv'")
+            @RequestParam(defaultValue = "ndjson") String format) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'.");
+        }
+        TrackingNumberExportService.Format exportFormat = switch (format.toLowerCase()) {
+            case "ndjson" -> TrackingNumberExportService.Format.NDJSON;
+            case "csv" -> TrackingNumberExportService.Format.CSV;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported format '" + format + "'. Supported: ndjson, csv.");
+        };
+
+        StreamingResponseBody body = out -> trackingNumberExportService.export(from, to, customerId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat == TrackingNumberExportService.Format.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tracking-numbers." + format.toLowerCase() + "\"")
+                .body(body);
+    }
+
+    @Operation(summary = "Retention progress",
+            description = "Progress of the current or last retention run (records older than tracking.retention.max-age-days).",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Retention status",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = RetentionStatusResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Retention is not enabled")
+            })
+    @GetMapping("/tracking-numbers/retention")
+    public ResponseEntity<RetentionStatusResponse> getRetentionStatus() {
+        return ResponseEntity.ok(requireRetentionService().getStatus());
+    }
+
+    @Operation(summary = "Start a retention run",
+            description = "Starts purging or archiving old records in the background. Poll GET /tracking-numbers/retention for progress.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Run started"),
+                    @ApiResponse(responseCode = "404", description = "Retention is not enabled"),
+                    @ApiResponse(responseCode = "409", description = "A run is already in progress")
+            })
+    @PostMapping("/tracking-numbers/retention/run")
+    public ResponseEntity<RetentionStatusResponse> startRetentionRun() {
+        TrackingNumberRetentionService service = requireRetentionService();
+        if (!service.startAsync()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A retention run is already in progress.");
+        }
+        return ResponseEntity.accepted().body(service.getStatus());
+    }
+
+    private TrackingNumberRetentionService requireRetentionService() {
+        if (retentionService == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Retention is not enabled.");
+        }
+        return retentionService;
+    }
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<String> handleValidationException(MethodArgumentNotValidException ex) {
+        String errors = ex.getBindingResult().getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .collect(Collectors.joining("; "));
+        return ResponseEntity.badRequest().body(errors);
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<String> handleUnreadableMessage(HttpMessageNotReadableException ex) {
+        return ResponseEntity.badRequest().body("Malformed request body.");
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<String> handleResponseStatusException(ResponseStatusException ex) {
-        return ResponseEntity.status(ex.getStatusCode()).body(ex.getReason());
+        return ResponseEntity.status(ex.getStatusCode()).headers(ex.getHeaders()).body(ex.getReason());
     }
 
     @ExceptionHandler(Exception.class)
@@ -0,0 +1,20 @@
+package com.example.trackingnumberapi.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+// Request body for bulk generation: one entry per order, answered with one tracking number per order (same order).
+@Data
+public class BulkTrackingNumberRequest {
+
+    public static final int MAX_ORDERS = 10_000;
+
+    @NotEmpty(message = "At least one order is required")
+    @Size(max = MAX_ORDERS, message = "A bulk request cannot contain more than " + MAX_ORDERS + " orders")
+    @Valid
+    private List<TrackingNumberRequestParams> orders;
+}
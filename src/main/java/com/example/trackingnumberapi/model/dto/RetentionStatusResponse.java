@@ -0,0 +1,24 @@
+package com.example.trackingnumberapi.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Progress of the current (or last) retention run.
+ */
+@Getter
+@AllArgsConstructor
+public class RetentionStatusResponse {
+
+    private final boolean running;
+    private final String mode; // 'purge' or 'archive'
+    private final OffsetDateTime cutoff; // Records generated before this are removed
+    private final OffsetDateTime startedAt;
+    private final OffsetDateTime finishedAt;
+    private final long batches;
+    private final long rows;
+    private final OffsetDateTime processedUpTo; // Generation time of the last removed record
+    private final String lastError;
+}
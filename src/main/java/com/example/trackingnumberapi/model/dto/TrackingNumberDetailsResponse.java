@@ -0,0 +1,32 @@
+package com.example.trackingnumberapi.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Immutable view of an issued tracking number, returned by the lookup API and kept in the lookup cache.
+@Getter
+@AllArgsConstructor
+public class TrackingNumberDetailsResponse {
+
+    private final String trackingNumber;
+
+    private final OffsetDateTime generatedAt;
+
+    private final String originCountryId;
+
+    private final String destinationCountryId;
+
+    private final BigDecimal weight;
+
+    private final OffsetDateTime orderCreatedAt;
+
+    private final UUID customerId;
+
+    private final String customerName;
+
+    private final String customerSlug;
+}
@@ -0,0 +1,17 @@
+package com.example.trackingnumberapi.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TrackingNumberExistenceRequest {
+
+    public static final int MAX_TRACKING_NUMBERS = 1_000;
+
+    @NotEmpty(message = "At least one tracking number is required")
+    @Size(max = MAX_TRACKING_NUMBERS, message = "A request cannot contain more than " + MAX_TRACKING_NUMBERS + " tracking numbers")
+    private List<String> trackingNumbers;
+}
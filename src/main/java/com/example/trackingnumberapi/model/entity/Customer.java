@@ -0,0 +1,63 @@
+package com.example.trackingnumberapi.model.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A customer, stored once instead of on every tracking number (see CustomerDictionary).
+ */
+@Entity
+@Table(name = "customers")
+@Getter
+@Setter
+@NoArgsConstructor
+public class Customer implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    // New customers must INSERT (and fail on the primary key if another instance was faster), not merge
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newCustomer = true;
+
+    @Size(max = 255)
+    @Column(nullable = false)
+    private String name;
+
+    @Size(max = 255)
+    @Pattern(regexp = "^[a-z0-9]+(?:-[a-z0-9]+)*$", message = "Customer slug must be in kebab-case")
+    @Column(nullable = false)
+    private String slug;
+
+    @UpdateTimestamp
+    private OffsetDateTime updatedAt;
+
+    public Customer(UUID id, String name, String slug) {
+        this.id = id;
+        this.name = name;
+        this.slug = slug;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newCustomer;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.newCustomer = false;
+    }
+}
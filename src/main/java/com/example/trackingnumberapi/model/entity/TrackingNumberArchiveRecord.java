@@ -0,0 +1,42 @@
+package com.example.trackingnumberapi.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Copy of a {@link TrackingNumberRecord} moved out of tracking_numbers by the retention job (mode 'archive').
+ * Rows are only ever written by the bulk INSERT ... SELECT in TrackingNumberArchiveRepository.
+ */
+@Entity
+@Table(name = "tracking_numbers_archive")
+@Getter
+@NoArgsConstructor
+public class TrackingNumberArchiveRecord {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, updatable = false)
+    private OffsetDateTime generatedAt;
+
+    @Column(length = 2)
+    private String originCountryId;
+
+    @Column(length = 2)
+    private String destinationCountryId;
+
+    @Column(precision = 10, scale = 3)
+    private BigDecimal weight;
+
+    private OffsetDateTime orderCreatedAt;
+
+    private UUID customerId;
+
+    @Column(length = 64)
+    private String idempotencyKey;
+}
@@ -3,34 +3,37 @@ package com.example.trackingnumberapi.model.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "tracking_numbers", indexes = {
-        @Index(name = "idx_tracking_number_unq", columnList = "trackingNumber", unique = true)
-})
+// (customerId, id) serves the per-customer export with keyset pagination
+@Table(name = "tracking_numbers", indexes = @Index(name = "idx_tracking_numbers_customer_id", columnList = "customerId, id"))
 @Getter
 @Setter
 @NoArgsConstructor
-public class TrackingNumberRecord {
+public class TrackingNumberRecord implements Persistable<Long> {
 
+    // The 64-bit ID from TrackingIdGenerator is the primary key. It is time-ordered, so inserts append to the
+    // end of the index. The Base36 tracking number is only rendered at the API edge (Base36Codec).
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO) // Or GenerationType.IDENTITY if preferred and DB supports it well
-    private Long id; // Internal database ID
-
     @NotNull
-    @Column(unique = true, nullable = false, length = 16)
-    @Pattern(regexp = "^[A-Z0-9]{1,16}$", message = "Tracking number must match the pattern ^[A-Z0-9]{1,16}$")
-    private String trackingNumber; // The generated tracking number
+    private Long id;
+
+    // The ID is assigned before saving, so save() would otherwise run merge() (a SELECT) before every INSERT
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newRecord = true;
 
     @CreationTimestamp // Automatically set by Hibernate on creation
     @Column(nullable = false, updatable = false)
@@ -50,27 +53,48 @@ public class TrackingNumberRecord {
 
     private OffsetDateTime orderCreatedAt; // Order's creation timestamp from request
 
+    // Name and slug live in the customers table (see CustomerDictionary), so every row stays fixed-width
     private UUID customerId;
 
-    @Size(max = 255)
-    private String customerName;
+    // Read-only association; it only declares the foreign key to customers. Writes go through customerId.
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customerId", referencedColumnName = "id", insertable = false, updatable = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Customer customer;
 
-    @Size(max = 255)
-    @Pattern(regexp = "^[a-z0-9]+(?:-[a-z0-9]+)*$", message = "Customer slug must be in kebab-case")
-    private String customerSlug;
+    // SHA-256 hex of the request's idempotency key (see IdempotencyIndex); null when idempotency is disabled.
+    // Unlike the in-memory window, a stored key matches retries for as long as the row exists (until retention removes it).
+    @Column(unique = true, length = 64)
+    private String idempotencyKey;
 
 
-    public TrackingNumberRecord(String trackingNumber, String originCountryId, String destinationCountryId,
-                                BigDecimal weight, OffsetDateTime orderCreatedAt, UUID customerId,
-                                String customerName, String customerSlug) {
-        this.trackingNumber = trackingNumber;
+    public TrackingNumberRecord(long id, String originCountryId, String destinationCountryId,
+                                BigDecimal weight, OffsetDateTime orderCreatedAt, UUID customerId) {
+        this.id = id;
         this.originCountryId = originCountryId;
         this.destinationCountryId = destinationCountryId;
         this.weight = weight;
         this.orderCreatedAt = orderCreatedAt;
         this.customerId = customerId;
-        this.customerName = customerName;
-        this.customerSlug = customerSlug;
     }
-}
 
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.newRecord = false;
+    }
+
+    /**
+     * Undoes {@link #markNotNew} after the transaction that persisted this record rolled back, so saving it again
+     * INSERTs (and fails on the primary key if the ID is taken) instead of merging into an existing row.
+     */
+    public void markNewAgain() {
+        this.newRecord = true;
+    }
+}
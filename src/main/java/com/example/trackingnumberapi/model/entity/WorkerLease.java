@@ -0,0 +1,64 @@
+package com.example.trackingnumberapi.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Lease on one worker ID of the generator's 10-bit worker field (see WorkerLeaseManager).
+ * A row exists for every worker ID that has ever been claimed; the ID is free again once {@code expiresAt} has passed.
+ */
+@Entity
+@Table(name = "worker_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+public class WorkerLease implements Persistable<Integer> {
+
+    @Id
+    private Integer workerId;
+
+    // Claims must INSERT (and fail on the primary key if another instance was faster), never merge into an existing lease
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newLease = true;
+
+    // Identifies the instance holding the lease (host name plus a random suffix)
+    @Column(nullable = false, length = 128)
+    private String ownerId;
+
+    @Column(nullable = false)
+    private Instant claimedAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    public WorkerLease(int workerId, String ownerId, Instant claimedAt, Instant expiresAt) {
+        this.workerId = workerId;
+        this.ownerId = ownerId;
+        this.claimedAt = claimedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public Integer getId() {
+        return workerId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newLease;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.newLease = false;
+    }
+}
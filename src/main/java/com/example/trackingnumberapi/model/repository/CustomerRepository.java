@@ -0,0 +1,11 @@
+package com.example.trackingnumberapi.model.repository;
+
+import com.example.trackingnumberapi.model.entity.Customer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+}
@@ -0,0 +1,25 @@
+package com.example.trackingnumberapi.model.repository;
+
+import com.example.trackingnumberapi.model.entity.TrackingNumberArchiveRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrackingNumberArchiveRepository extends JpaRepository<TrackingNumberArchiveRecord, Long> {
+
+    /**
+     * Copies all tracking number records with an ID in [fromId, toId] into the archive table in a single statement.
+     * Must run in the same transaction as the matching {@link TrackingNumberRecordRepository#deleteIdRange}.
+     * @return The number of copied rows.
+     */
+    @Modifying
+    @Query("insert into TrackingNumberArchiveRecord (id, generatedAt, originCountryId, destinationCountryId, weight, " +
+            "orderCreatedAt, customerId, idempotencyKey) " +
+            "select r.id, r.generatedAt, r.originCountryId, r.destinationCountryId, r.weight, " +
+            "r.orderCreatedAt, r.customerId, r.idempotencyKey " +
+            "from TrackingNumberRecord r where r.id >= :fromId and r.id <= :toId")
+    int copyIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+}
@@ -0,0 +1,26 @@
+package com.example.trackingnumberapi.model.repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Interface projection used by the export: only the exported columns are selected and the rows are not managed
+ * entities, so they do not accumulate in the persistence context.
+ */
+public interface TrackingNumberExportView {
+
+    Long getId();
+
+    OffsetDateTime getGeneratedAt();
+
+    String getOriginCountryId();
+
+    String getDestinationCountryId();
+
+    BigDecimal getWeight();
+
+    OffsetDateTime getOrderCreatedAt();
+
+    UUID getCustomerId();
+}
@@ -1,26 +1,108 @@
 package com.example.trackingnumberapi.model.repository;
 
 import com.example.trackingnumberapi.model.entity.TrackingNumberRecord;
+import com.example.trackingnumberapi.service.Base36Codec;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface TrackingNumberRecordRepository extends JpaRepository<TrackingNumberRecord, Long> {
 
     /**
      * Checks if a tracking number already exists.
-     * This is more efficient than fetching the whole entity if you only need to check existence.
+     * The tracking number is the Base36 form of the primary key, so this is a primary key lookup.
      * @param trackingNumber The tracking number to check.
      * @return true if it exists, false otherwise.
      */
-    boolean existsByTrackingNumber(String trackingNumber);
+    default boolean existsByTrackingNumber(String trackingNumber) {
+        Long id = parseTrackingNumber(trackingNumber);
+        return id != null && existsById(id);
+    }
 
     /**
      * Finds a tracking number record by its tracking number string.
      * @param trackingNumber The tracking number to find.
      * @return An Optional containing the record if found.
      */
-    Optional<TrackingNumberRecord> findByTrackingNumber(String trackingNumber);
+    default Optional<TrackingNumberRecord> findByTrackingNumber(String trackingNumber) {
+        Long id = parseTrackingNumber(trackingNumber);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    /**
+     * Finds the record created by the first request that used an idempotency key.
+     * @param idempotencyKey The stored (hashed) idempotency key.
+     * @return An Optional containing the record if found.
+     */
+    Optional<TrackingNumberRecord> findByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Returns which of the given IDs exist, in a single query.
+     * @param ids The IDs to check.
+     * @return The subset of {@code ids} that has a record.
+     */
+    @Query("select r.id from TrackingNumberRecord r where r.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Keyset pagination over all IDs, used to warm up in-memory indexes without loading whole entities.
+     * @param afterId Exclusive lower bound (the last ID of the previous page, or -1 for the first page).
+     * @param page    Page size (always use page 0; the position is given by {@code afterId}).
+     * @return Up to {@code page.getPageSize()} IDs greater than {@code afterId}, in ascending order.
+     */
+    @Query("select r.id from TrackingNumberRecord r where r.id > :afterId order by r.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable page);
+
+    /**
+     * Keyset pagination over the IDs in an open range. IDs are time-ordered, so a range of IDs is a range of generation times.
+     * @param afterId  Exclusive lower bound.
+     * @param beforeId Exclusive upper bound.
+     * @param page     Page size (always use page 0).
+     * @return Up to {@code page.getPageSize()} IDs in (afterId, beforeId), in ascending order.
+     */
+    @Query("select r.id from TrackingNumberRecord r where r.id > :afterId and r.id < :beforeId order by r.id")
+    List<Long> findIdsBetween(@Param("afterId") long afterId, @Param("beforeId") long beforeId, Pageable page);
+
+    /**
+     * One page of the export: records with an ID in (afterId, beforeId), in ascending ID order.
+     * Callers page with keyset pagination, passing the last ID of the previous page as {@code afterId}.
+     */
+    @Query("select r.id as id, r.generatedAt as generatedAt, r.originCountryId as originCountryId, " +
+            "r.destinationCountryId as destinationCountryId, r.weight as weight, r.orderCreatedAt as orderCreatedAt, " +
+            "r.customerId as customerId from TrackingNumberRecord r where r.id > :afterId and r.id < :beforeId order by r.id")
+    List<TrackingNumberExportView> findExportPage(@Param("afterId") long afterId, @Param("beforeId") long beforeId, Pageable page);
+
+    /**
+     * Like {@link #findExportPage}, restricted to one customer (served by the (customerId, id) index).
+     */
+    @Query("select r.id as id, r.generatedAt as generatedAt, r.originCountryId as originCountryId, " +
+            "r.destinationCountryId as destinationCountryId, r.weight as weight, r.orderCreatedAt as orderCreatedAt, " +
+            "r.customerId as customerId from TrackingNumberRecord r " +
+            "where r.customerId = :customerId and r.id > :afterId and r.id < :beforeId order by r.id")
+    List<TrackingNumberExportView> findExportPageForCustomer(@Param("customerId") UUID customerId, @Param("afterId") long afterId,
+                                                             @Param("beforeId") long beforeId, Pageable page);
+
+    /**
+     * Deletes all records with an ID in [fromId, toId] with one range DELETE on the primary key.
+     * @return The number of deleted rows.
+     */
+    @Modifying
+    @Query("delete from TrackingNumberRecord r where r.id >= :fromId and r.id <= :toId")
+    int deleteIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    private static Long parseTrackingNumber(String trackingNumber) {
+        if (!Base36Codec.isValid(trackingNumber)) {
+            return null; // Not a valid tracking number, so it cannot have been issued
+        }
+        return Base36Codec.decode(trackingNumber);
+    }
 }
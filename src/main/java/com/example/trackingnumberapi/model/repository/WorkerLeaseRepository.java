@@ -0,0 +1,49 @@
+package com.example.trackingnumberapi.model.repository;
+
+import com.example.trackingnumberapi.model.entity.WorkerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface WorkerLeaseRepository extends JpaRepository<WorkerLease, Integer> {
+
+    /**
+     * @return Every worker ID that has a lease row (expired or not).
+     */
+    @Query("select l.workerId from WorkerLease l")
+    List<Integer> findLeasedWorkerIds();
+
+    /**
+     * @param now The current time.
+     * @return Worker IDs whose lease has expired, longest expired first.
+     */
+    @Query("select l.workerId from WorkerLease l where l.expiresAt < :now order by l.expiresAt")
+    List<Integer> findExpiredWorkerIds(@Param("now") Instant now);
+
+    /**
+     * Takes over an expired lease. The expiry check is part of the UPDATE, so only one instance can win.
+     * @return 1 if the lease was taken over, 0 if it was renewed or taken by someone else in the meantime.
+     */
+    @Transactional
+    @Modifying
+    @Query("update WorkerLease l set l.ownerId = :ownerId, l.claimedAt = :now, l.expiresAt = :expiresAt " +
+            "where l.workerId = :workerId and l.expiresAt < :now")
+    int takeOverExpired(@Param("workerId") int workerId, @Param("ownerId") String ownerId,
+                        @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Moves the expiry of a lease held by {@code ownerId} (renewal or release).
+     * @return 1 if the lease is still held by {@code ownerId}, 0 if it was taken over.
+     */
+    @Transactional
+    @Modifying
+    @Query("update WorkerLease l set l.expiresAt = :expiresAt where l.workerId = :workerId and l.ownerId = :ownerId")
+    int updateExpiry(@Param("workerId") int workerId, @Param("ownerId") String ownerId, @Param("expiresAt") Instant expiresAt);
+}
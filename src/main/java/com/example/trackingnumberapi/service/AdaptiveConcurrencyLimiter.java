@@ -0,0 +1,110 @@
+package com.example.trackingnumberapi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Global limit on the number of tracking number requests {@link TrackingNumberService} processes at once.
+ * Requests over the limit are rejected immediately (429) instead of queueing on the generator lock and the
+ * connection pool until they time out.
+ * <p>
+ * The limit adapts to the observed save latency (AIMD):
+ * <ul>
+ *     <li>A save slower than 'target-latency-ms' multiplies the limit by 'backoff-ratio'. Saves that were already
+ *     running at the previous decrease only reflect the old limit, so the limit drops at most once per observed latency.</li>
+ *     <li>A faster save raises the limit by 1/limit, i.e. by about one per limit's worth of fast saves. This only happens
+ *     while at least half of the limit is in use, so an idle service does not drift up to 'max'.</li>
+ * </ul>
+ * All state is in atomics; admitting a request is one compare-and-set.
+ * <p>
+ * Enabled with tracking.admission.concurrency-limit.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.admission.concurrency-limit.enabled", havingValue = "true")
+public class AdaptiveConcurrencyLimiter {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits; // The limit as a double, so additive increases below 1 accumulate
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime() - TimeUnit.HOURS.toNanos(1));
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    public AdaptiveConcurrencyLimiter(@Value("${tracking.admission.concurrency-limit.initial:20}") int initialLimit,
+                                      @Value("${tracking.admission.concurrency-limit.min:4}") int minLimit,
+                                      @Value("${tracking.admission.concurrency-limit.max:200}") int maxLimit,
+                                      @Value("${tracking.admission.concurrency-limit.target-latency-ms:50}") long targetLatencyMs,
+                                      @Value("${tracking.admission.concurrency-limit.backoff-ratio:0.9}") double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit
+                || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid concurrency limit: initial=%d, min=%d, max=%d, backoff-ratio=%s", initialLimit, minLimit, maxLimit, backoffRatio));
+        }
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * @return true if the request may proceed (the caller must then call {@link #release}), false if the limit is reached.
+     */
+    public boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Adjusts the limit to one observed save latency.
+     */
+    public void onSample(long latencyNanos) {
+        if (latencyNanos > targetLatencyNanos) {
+            long now = System.nanoTime();
+            long last = lastDecreaseNanos.get();
+            if (now - last < latencyNanos || !lastDecreaseNanos.compareAndSet(last, now)) {
+                return;
+            }
+            updateLimit(limit -> Math.max(minLimit, limit * backoffRatio));
+        } else if (inFlight.get() * 2 >= getLimit()) {
+            updateLimit(limit -> Math.min(maxLimit, limit + 1.0 / limit));
+        }
+    }
+
+    private void updateLimit(DoubleUnaryOperator update) {
+        while (true) {
+            long current = limitBits.get();
+            long updated = Double.doubleToLongBits(update.applyAsDouble(Double.longBitsToDouble(current)));
+            if (current == updated || limitBits.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.trackingnumberapi.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes tracking IDs as uppercase Base36 tracking numbers and decodes them back.
+ * Digits are written straight from a lookup table (no intermediate lowercase String, no regex),
+ * either into a new String or into a caller-supplied buffer.
+ * <p>
+ * In fixed-width mode numbers are left-padded with '0' to {@link #MAX_LENGTH} characters. Because
+ * '0'-'9' sort before 'A'-'Z', fixed-width numbers then sort lexicographically in ID (and therefore time) order.
+ */
+public final class Base36Codec {
+
+    /** Length of Long.MAX_VALUE in Base36 ("1Y2P0IJ32E8E7"). */
+    public static final int MAX_LENGTH = 13;
+
+    public static final Base36Codec VARIABLE_WIDTH = new Base36Codec(0);
+    public static final Base36Codec FIXED_WIDTH = new Base36Codec(MAX_LENGTH);
+
+    private static final int RADIX = 36;
+    private static final byte[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VALUES = new byte[128];
+    // POWERS[i] = 36^i, used to size the output before writing it
+    private static final long[] POWERS = new long[MAX_LENGTH];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            VALUES[DIGITS[i]] = (byte) i;
+            VALUES[Character.toLowerCase(DIGITS[i])] = (byte) i;
+        }
+        POWERS[0] = 1;
+        for (int i = 1; i < MAX_LENGTH; i++) {
+            POWERS[i] = POWERS[i - 1] * RADIX;
+        }
+    }
+
+    private final int width;
+
+    private Base36Codec(int width) {
+        this.width = width;
+    }
+
+    public static Base36Codec of(boolean fixedWidth) {
+        return fixedWidth ? FIXED_WIDTH : VARIABLE_WIDTH;
+    }
+
+    public boolean isFixedWidth() {
+        return width > 0;
+    }
+
+    /**
+     * @return The number of characters {@link #encode} produces for the given ID.
+     */
+    public int encodedLength(long id) {
+        requireNonNegative(id);
+        int digits = 1;
+        while (digits < MAX_LENGTH && id >= POWERS[digits]) {
+            digits++;
+        }
+        return Math.max(digits, width);
+    }
+
+    public String encode(long id) {
+        char[] buffer = new char[encodedLength(id)];
+        encodeTo(id, buffer, 0);
+        return new String(buffer);
+    }
+
+    /**
+     * Writes the tracking number for {@code id} into {@code buffer} starting at {@code offset}.
+     *
+     * @return The number of characters written.
+     */
+    public int encodeTo(long id, char[] buffer, int offset) {
+        int length = encodedLength(id);
+        for (int pos = offset + length - 1; pos >= offset; pos--) {
+            buffer[pos] = (char) DIGITS[(int) (id % RADIX)];
+            id /= RADIX;
+        }
+        return length;
+    }
+
+    /**
+     * Writes the tracking number for {@code id} as ASCII bytes into {@code buffer} starting at {@code offset}.
+     *
+     * @return The number of bytes written.
+     */
+    public int encodeTo(long id, byte[] buffer, int offset) {
+        int length = encodedLength(id);
+        for (int pos = offset + length - 1; pos >= offset; pos--) {
+            buffer[pos] = DIGITS[(int) (id % RADIX)];
+            id /= RADIX;
+        }
+        return length;
+    }
+
+    /**
+     * Decodes a tracking number (fixed or variable width, case-insensitive) back to its ID.
+     *
+     * @throws NumberFormatException if the value is not a valid Base36 tracking number.
+     */
+    public static long decode(CharSequence trackingNumber) {
+        int length = trackingNumber.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            throw new NumberFormatException("Tracking number must be 1 to " + MAX_LENGTH + " Base36 characters: " + trackingNumber);
+        }
+        long id = 0;
+        for (int i = 0; i < length; i++) {
+            char c = trackingNumber.charAt(i);
+            int value = c < VALUES.length ? VALUES[c] : -1;
+            if (value < 0) {
+                throw new NumberFormatException("Invalid Base36 character '" + c + "' in tracking number: " + trackingNumber);
+            }
+            if (id > (Long.MAX_VALUE - value) / RADIX) {
+                throw new NumberFormatException("Tracking number out of range: " + trackingNumber);
+            }
+            id = id * RADIX + value;
+        }
+        return id;
+    }
+
+    /**
+     * @return true if {@link #decode} would accept the value.
+     */
+    public static boolean isValid(CharSequence trackingNumber) {
+        int length = trackingNumber.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return false;
+        }
+        long id = 0;
+        for (int i = 0; i < length; i++) {
+            char c = trackingNumber.charAt(i);
+            int value = c < VALUES.length ? VALUES[c] : -1;
+            if (value < 0 || id > (Long.MAX_VALUE - value) / RADIX) {
+                return false;
+            }
+            id = id * RADIX + value;
+        }
+        return true;
+    }
+
+    private static void requireNonNegative(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Tracking IDs are non-negative: " + id);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.trackingnumberapi.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded, TTL-evicting in-memory cache.
+ * Entries expire {@code ttl} after they were written. When the cache grows past {@code maxSize}
+ * the oldest entries are evicted first (insertion order). For tracking numbers, which are written
+ * in time order, the oldest entry is also the one least likely to be looked up again.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+    }
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<K> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedTtlCache(int maxSize, long ttl, TimeUnit ttlUnit) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlUnit.toNanos(ttl);
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAtNanos() - System.nanoTime() < 0) {
+            // Expired entries stay until they are overwritten or evicted, which keeps
+            // insertionOrder in step with the map (every cached key is queued exactly once).
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    public void put(K key, V value) {
+        Entry<V> previous = entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        if (previous == null) {
+            insertionOrder.offer(key);
+            evictOverflow();
+        }
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maxSize) {
+            K oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (entries.remove(oldest) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.trackingnumberapi.service;
+
+/**
+ * What {@link TrackingIdGenerator} does when the clock is behind the timestamp of the last generated ID
+ * (for example after an NTP step backwards). Regressions beyond the configured threshold always fail.
+ */
+public enum ClockRegressionMode {
+
+    /** Fail on any regression (IllegalStateException). */
+    STRICT,
+
+    /** Park the calling thread until the clock has caught up with the last timestamp. */
+    WAIT,
+
+    /**
+     * Keep issuing IDs from the last timestamp, and from the following milliseconds once its sequence is exhausted,
+     * i.e. borrow timestamps from the future while they stay within the threshold of the clock.
+     */
+    BORROW
+}
@@ -0,0 +1,124 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.entity.Customer;
+import com.example.trackingnumberapi.model.repository.CustomerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory dictionary of customers backed by the customers table.
+ * Tracking numbers only store the customer's UUID. Name and slug are written to the customers table the first time
+ * a customer is seen and again only when they change, so the common case ({@link #ensure} for a known, unchanged customer)
+ * is a single ConcurrentHashMap lookup with no database write.
+ * <p>
+ * Writes for the same customer are serialized within the instance (striped locks), so concurrent first requests of
+ * a new customer insert it once instead of racing on the primary key. Instances still race with each other;
+ * the loser retries as an update.
+ * <p>
+ * The dictionary is not bounded: it holds one small entry per customer, not per tracking number.
+ */
+@Component
+@Slf4j
+public class CustomerDictionary {
+
+    public record CustomerInfo(String name, String slug) {
+    }
+
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentHashMap<UUID, CustomerInfo> customers = new ConcurrentHashMap<>();
+    // ReentrantLocks rather than monitors, so virtual threads waiting for a write do not pin their carriers
+    private final ReentrantLock[] writeLocks = new ReentrantLock[64];
+
+    public CustomerDictionary(CustomerRepository customerRepository, PlatformTransactionManager transactionManager) {
+        this.customerRepository = customerRepository;
+        // Always its own transaction. Callers must not hold one: it would need a second pooled connection per request
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Makes sure the customers table holds {@code name} and {@code slug} for {@code customerId}.
+     * Must be called before a tracking number referencing the customer is inserted, and outside of a transaction.
+     */
+    public void ensure(UUID customerId, String name, String slug) {
+        if (isKnown(customerId, name, slug)) {
+            return;
+        }
+        ReentrantLock writeLock = writeLocks[(customerId.hashCode() & Integer.MAX_VALUE) % writeLocks.length];
+        writeLock.lock();
+        try {
+            if (isKnown(customerId, name, slug)) {
+                return; // Written by the request that held the lock before us
+            }
+            upsert(customerId, name, slug);
+            customers.put(customerId, new CustomerInfo(name, slug));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean isKnown(UUID customerId, String name, String slug) {
+        CustomerInfo known = customers.get(customerId);
+        return known != null && known.name().equals(name) && known.slug().equals(slug);
+    }
+
+    /**
+     * @return Name and slug of the customer, from memory or else from the customers table.
+     */
+    public Optional<CustomerInfo> find(UUID customerId) {
+        if (customerId == null) {
+            return Optional.empty();
+        }
+        CustomerInfo known = customers.get(customerId);
+        if (known != null) {
+            return Optional.of(known);
+        }
+        Optional<CustomerInfo> loaded = customerRepository.findById(customerId)
+                .map(customer -> new CustomerInfo(customer.getName(), customer.getSlug()));
+        loaded.ifPresent(info -> customers.putIfAbsent(customerId, info));
+        return loaded;
+    }
+
+    private void upsert(UUID customerId, String name, String slug) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertOrUpdate(customerId, name, slug));
+        } catch (DataIntegrityViolationException e) {
+            // Inserted concurrently by another instance; it exists now, so this run updates it if it differs
+            transactionTemplate.executeWithoutResult(status -> insertOrUpdate(customerId, name, slug));
+        }
+    }
+
+    private void insertOrUpdate(UUID customerId, String name, String slug) {
+        Optional<Customer> stored = customerRepository.findById(customerId);
+        if (stored.isEmpty()) {
+            customerRepository.saveAndFlush(new Customer(customerId, name, slug));
+            log.debug("Added customer {} ({})", customerId, slug);
+            return;
+        }
+        Customer customer = stored.get();
+        if (!Objects.equals(customer.getName(), name) || !Objects.equals(customer.getSlug(), slug)) {
+            customer.setName(name);
+            customer.setSlug(slug);
+            customerRepository.save(customer);
+            log.info("Updated customer {} to name '{}', slug '{}'", customerId, name, slug);
+        }
+    }
+
+    public int size() {
+        return customers.size();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.trackingnumberapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-customer rate limit in front of {@link TrackingNumberService}, so one noisy customer cannot use up the capacity
+ * of everyone else.
+ * <p>
+ * Every customer has a token bucket of 'burst' requests refilled at 'requests-per-second', implemented with GCRA
+ * (generic cell rate algorithm). The whole bucket is one AtomicLong holding the theoretical arrival time of the next
+ * request, updated with compare-and-set, so admitting a request takes no lock and allocates nothing.
+ * <p>
+ * A bucket whose theoretical arrival time has passed is full, which is the same as having no bucket. Such buckets are
+ * evicted every 'eviction-interval-ms', so the map only holds customers that sent requests recently. Customer IDs
+ * come from the client, so the map is also capped at 'max-customers'; customers arriving while it is full share one
+ * overflow bucket until the next eviction.
+ * <p>
+ * Enabled with tracking.admission.rate-limit.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.admission.rate-limit.enabled", havingValue = "true")
+@Slf4j
+public class CustomerRateLimiter {
+
+    private final ConcurrentHashMap<UUID, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflowBucket = new AtomicLong(System.nanoTime());
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxCustomers;
+
+    private final LongAdder evictions = new LongAdder();
+
+    public CustomerRateLimiter(@Value("${tracking.admission.rate-limit.requests-per-second:100}") double requestsPerSecond,
+                               @Value("${tracking.admission.rate-limit.burst:200}") int burst,
+                               @Value("${tracking.admission.rate-limit.max-customers:100000}") int maxCustomers) {
+        if (requestsPerSecond <= 0 || burst < 1 || maxCustomers < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid rate limit: requests-per-second=%s, burst=%d, max-customers=%d", requestsPerSecond, burst, maxCustomers));
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.maxCustomers = maxCustomers;
+    }
+
+    /**
+     * Takes one request from the customer's bucket.
+     *
+     * @return 0 if the request is admitted, otherwise the nanoseconds until the customer can send the next one.
+     */
+    public long tryAcquire(UUID customerId) {
+        return tryAcquire(customerId, 1);
+    }
+
+    /**
+     * Takes {@code permits} requests from the customer's bucket at once (e.g. one per order of a bulk request).
+     * More permits than 'burst' never fit in the bucket; such a request is admitted only when the bucket is full and
+     * leaves it in debt, so the customer's next requests wait until the whole cost has been refilled.
+     *
+     * @return 0 if the request is admitted, otherwise the nanoseconds until the bucket can admit it.
+     */
+    public long tryAcquire(UUID customerId, int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        long now = System.nanoTime();
+        AtomicLong bucket = bucketFor(customerId, now);
+        long costNanos = emissionIntervalNanos * permits;
+        long admissionCostNanos = Math.min(costNanos, burstToleranceNanos + emissionIntervalNanos) - emissionIntervalNanos;
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            long start = theoreticalArrival - now > 0 ? theoreticalArrival : now;
+            long wait = start + admissionCostNanos - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, start + costNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucketFor(UUID customerId, long now) {
+        if (customerId == null) {
+            return overflowBucket;
+        }
+        AtomicLong bucket = buckets.get(customerId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxCustomers) {
+            return overflowBucket;
+        }
+        return buckets.computeIfAbsent(customerId, id -> new AtomicLong(now));
+    }
+
+    /**
+     * Removes full buckets. A request that picked up a bucket just before it was removed updates the removed copy,
+     * so the customer can get at most one request more than its burst at that moment.
+     */
+    @Scheduled(fixedDelayString = "${tracking.admission.rate-limit.eviction-interval-ms:10000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<UUID, AtomicLong> entry : buckets.entrySet()) {
+            if (now - entry.getValue().get() >= 0 && buckets.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        evictions.add(evicted);
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets; {} remain", evicted, buckets.size());
+        }
+    }
+
+    public int getCustomerCount() {
+        return buckets.size();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+}
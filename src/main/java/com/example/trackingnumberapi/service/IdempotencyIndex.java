@@ -0,0 +1,112 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.dto.TrackingNumberRequestParams;
+import com.example.trackingnumberapi.model.dto.TrackingNumberResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of recently used idempotency keys for {@link TrackingNumberService}.
+ * Each key maps to the (possibly still running) result of the first request that used it, so a retry
+ * inside the window gets the original response without generating or saving anything.
+ * <p>
+ * The index is a lock-free ConcurrentHashMap bounded by 'max-entries' (oldest keys are evicted first)
+ * and by the 'window-seconds' TTL. The unique idempotencyKey column on tracking_numbers covers retries
+ * that arrive after eviction, after a restart or on another instance. That column has no TTL: a stored key
+ * matches until retention removes its record, so 'window-seconds' does not bound how long a key deduplicates.
+ * <p>
+ * Enabled with tracking.idempotency.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.idempotency.enabled", havingValue = "true")
+public class IdempotencyIndex {
+
+    private record Entry(CompletableFuture<TrackingNumberResponse> result, long expiresAtNanos) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final long windowNanos;
+
+    public IdempotencyIndex(@Value("${tracking.idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${tracking.idempotency.window-seconds:900}") long windowSeconds) {
+        this.maxEntries = maxEntries;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+    }
+
+    /**
+     * Builds the stored key for a request: from the client's Idempotency-Key header if present (scoped to the customer),
+     * otherwise from the order identity (customer, order creation time, origin, destination and weight).
+     * The result is a SHA-256 hex digest, so it has a fixed length of 64 characters.
+     */
+    public String keyFor(TrackingNumberRequestParams params, String idempotencyKeyHeader) {
+        String source;
+        if (idempotencyKeyHeader != null && !idempotencyKeyHeader.isBlank()) {
+            source = "header|" + params.getCustomerId() + "|" + idempotencyKeyHeader;
+        } else {
+            source = "order|" + params.getCustomerId()
+                    + "|" + params.getCreatedAt().toInstant()
+                    + "|" + params.getOriginCountryId()
+                    + "|" + params.getDestinationCountryId()
+                    + "|" + params.getWeight().stripTrailingZeros().toPlainString();
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Every JVM is required to provide SHA-256
+        }
+    }
+
+    /**
+     * Claims {@code key} for the calling request unless another request already holds it.
+     * Keys whose window has passed, or whose original request failed, can be claimed again.
+     *
+     * @param key   The idempotency key.
+     * @param claim Future the caller completes with its response (or its failure).
+     * @return null if the caller now owns the key, otherwise the result of the request that owns it.
+     */
+    public CompletableFuture<TrackingNumberResponse> claim(String key, CompletableFuture<TrackingNumberResponse> claim) {
+        long now = System.nanoTime();
+        Entry fresh = new Entry(claim, now + windowNanos);
+        while (true) {
+            Entry current = entries.putIfAbsent(key, fresh);
+            if (current == null) {
+                insertionOrder.offer(key);
+                evictOverflow();
+                return null;
+            }
+            if (current.expiresAtNanos() - now >= 0 && !current.result().isCompletedExceptionally()) {
+                return current.result();
+            }
+            if (entries.replace(key, current, fresh)) {
+                return null; // Same key, so its insertionOrder slot is reused
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maxEntries) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            entries.remove(oldest);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
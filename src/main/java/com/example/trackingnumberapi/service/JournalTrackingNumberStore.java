@@ -0,0 +1,649 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.entity.TrackingNumberRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link TrackingNumberStore} that appends records to a memory-mapped journal instead of a database table
+ * (tracking.store.type=journal). It is meant for deployments that only need "never issue the same number twice"
+ * plus lookup by tracking number.
+ * <p>
+ * The journal is a directory of segment files (segment-000000000001.journal, ...), each mapped into memory as a whole.
+ * A segment starts with a header followed by fixed-size {@value #RECORD_SIZE}-byte records. When a segment is full the
+ * next one is created (rolled). Every record ends with a CRC32C checksum, so a record torn by a crash is detected on
+ * startup and the journal continues after the last intact record.
+ * <p>
+ * Durability is set with tracking.store.journal.fsync:
+ * <ul>
+ *     <li>{@code batch} (default): save returns once its record has been forced to disk. A background thread forces
+ *     everything appended since the previous force, as soon as 'fsync-batch-size' records are waiting or at most
+ *     'fsync-interval-ms' after the first one, so one fsync covers many requests.</li>
+ *     <li>{@code none}: save returns once the record is in the mapped pages. It survives a crash of the JVM but not of the
+ *     machine. The background thread still forces the journal every 'fsync-interval-ms'.</li>
+ * </ul>
+ * The ID index is rebuilt from the segments on startup and kept in memory: a sorted ID array per full segment and a
+ * hash map for the segment being written. Duplicate checks and point lookups therefore never read more than one record.
+ * <p>
+ * Only the ID, countries, weight, timestamps and customer ID are stored. Idempotency keys are not, so retries are only
+ * recognised within the in-memory {@link IdempotencyIndex} window. Export and retention work on the tracking_numbers
+ * table and do not cover the journal.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.store.type", havingValue = "journal")
+@Slf4j
+public class JournalTrackingNumberStore implements TrackingNumberStore {
+
+    static final int RECORD_SIZE = 64;
+    private static final int HEADER_SIZE = RECORD_SIZE; // Keeps records aligned to their size
+    private static final int MAGIC = 0x544E4A31; // "TNJ1"
+    private static final int FORMAT_VERSION = 1;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final long ABSENT = Long.MIN_VALUE; // Stored for null timestamps and weights
+
+    // Record layout (byte offsets). Timestamps are epoch microseconds plus their zone offset in seconds;
+    // the weight is in grams (kilograms at scale 3, as in the weight column); a null customer ID is stored as (0, 0).
+    private static final int ID = 0;
+    private static final int GENERATED_AT = 8;
+    private static final int ORDER_CREATED_AT = 16;
+    private static final int WEIGHT_GRAMS = 24;
+    private static final int CUSTOMER_ID_MSB = 32;
+    private static final int CUSTOMER_ID_LSB = 40;
+    private static final int GENERATED_AT_OFFSET = 48;
+    private static final int ORDER_CREATED_AT_OFFSET = 52;
+    private static final int ORIGIN_COUNTRY = 56;
+    private static final int DESTINATION_COUNTRY = 58;
+    private static final int CHECKSUM = 60;
+
+    private static final class Segment {
+        final long number;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        int count; // Records written; guarded by lock
+
+        Segment(long number, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        }
+    }
+
+    // The segment being written and the slot of each of its IDs
+    private record ActiveSegment(Segment segment, ConcurrentHashMap<Long, Integer> index) {
+    }
+
+    // A full segment: its IDs in ascending order and the slot of each
+    private record SealedSegment(Segment segment, long[] ids, int[] slots) {
+    }
+
+    private record Location(Segment segment, int slot) {
+    }
+
+    private final Path directory;
+    private final int segmentSizeBytes;
+    private final boolean waitForFsync;
+    private final long fsyncIntervalNanos;
+    private final int fsyncBatchSize;
+    private final long fsyncTimeoutNanos;
+
+    // Appends, rolls and the fsync bookkeeping are guarded by lock. Lookups only read the volatile segment lists.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition fsyncRequested = lock.newCondition();
+    private final Condition fsynced = lock.newCondition();
+    private volatile ActiveSegment active;
+    private volatile List<SealedSegment> sealed = List.of();
+    private volatile long appended; // Records appended since startup, including recovered ones
+    private volatile long durable; // Records known to be forced to disk
+    private int fsyncedSlot; // First slot of the active segment not yet forced
+    private volatile boolean running = true;
+    private final Thread fsyncThread;
+
+    private final LongAdder fsyncs = new LongAdder();
+
+    public JournalTrackingNumberStore(@Value("${tracking.store.journal.directory:./data/journal}") String directory,
+                                      @Value("${tracking.store.journal.segment-size-mb:16}") int segmentSizeMb,
+                                      @Value("${tracking.store.journal.fsync:batch}") String fsync,
+                                      @Value("${tracking.store.journal.fsync-interval-ms:2}") long fsyncIntervalMs,
+                                      @Value("${tracking.store.journal.fsync-batch-size:256}") int fsyncBatchSize,
+                                      @Value("${tracking.store.journal.fsync-timeout-ms:5000}") long fsyncTimeoutMs) throws IOException {
+        if (!"batch".equals(fsync) && !"none".equals(fsync)) {
+            throw new IllegalArgumentException(String.format(
+                    "Unknown tracking.store.journal.fsync '%s'. Supported: batch, none", fsync));
+        }
+        if (segmentSizeMb < 1 || segmentSizeMb > 1024) {
+            throw new IllegalArgumentException(String.format(
+                    "tracking.store.journal.segment-size-mb must be between 1 and 1024, was %d", segmentSizeMb));
+        }
+        this.directory = Path.of(directory);
+        this.segmentSizeBytes = segmentSizeMb * 1024 * 1024;
+        this.waitForFsync = "batch".equals(fsync);
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        this.fsyncBatchSize = Math.max(1, fsyncBatchSize);
+        this.fsyncTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(fsyncTimeoutMs);
+        this.fsyncThread = new Thread(this::fsyncLoop, "tracking-journal-fsync");
+
+        Files.createDirectories(this.directory);
+        recover();
+    }
+
+    @PostConstruct
+    void start() {
+        fsyncThread.start();
+    }
+
+    /**
+     * Opens the existing segments, rebuilds the ID index and positions the journal after the last intact record.
+     */
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+
+        List<SealedSegment> sealedSegments = new ArrayList<>();
+        long records = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            Segment segment = openSegment(paths.get(i));
+            ConcurrentHashMap<Long, Integer> index = new ConcurrentHashMap<>();
+            while (segment.count < segment.capacity) {
+                TrackingNumberRecord record = read(segment, segment.count);
+                if (record == null) {
+                    break;
+                }
+                index.put(record.getId(), segment.count);
+                segment.count++;
+            }
+            records += segment.count;
+
+            if (i < paths.size() - 1) {
+                if (segment.count < segment.capacity) {
+                    log.warn("Journal segment {} ends after {} of {} records", paths.get(i), segment.count, segment.capacity);
+                }
+                if (segment.count > 0) {
+                    sealedSegments.add(seal(segment));
+                }
+            } else {
+                clearTail(segment);
+                active = new ActiveSegment(segment, index);
+            }
+        }
+        if (active == null) {
+            active = new ActiveSegment(createSegment(1), new ConcurrentHashMap<>());
+        }
+        sealed = List.copyOf(sealedSegments);
+        appended = records;
+        durable = records;
+        fsyncedSlot = active.segment().count;
+        log.info("Tracking number journal opened in {}: {} records in {} segments (fsync: {})",
+                directory.toAbsolutePath(), records, sealedSegments.size() + 1, waitForFsync ? "batch" : "none");
+    }
+
+    @Override
+    public TrackingNumberRecord save(TrackingNumberRecord record) {
+        return saveAll(List.of(record)).get(0);
+    }
+
+    /**
+     * Appends all records, or none of them if one of the IDs is already stored.
+     * An I/O failure while rolling to a new segment can leave the records before it stored.
+     */
+    @Override
+    public List<TrackingNumberRecord> saveAll(List<TrackingNumberRecord> records) {
+        // Encoding and checksumming happen outside the lock; the lock only covers copying into the mapped segment
+        OffsetDateTime generatedAt = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        byte[][] encoded = new byte[records.size()][];
+        for (int i = 0; i < records.size(); i++) {
+            records.get(i).setGeneratedAt(generatedAt);
+            encoded[i] = encode(records.get(i));
+        }
+
+        lock.lock();
+        try {
+            if (!running) {
+                throw new DataAccessResourceFailureException("Tracking number journal is closed");
+            }
+            Set<Long> batchIds = records.size() > 1 ? new HashSet<>() : Set.of();
+            for (TrackingNumberRecord record : records) {
+                if (locate(record.getId()) != null || (records.size() > 1 && !batchIds.add(record.getId()))) {
+                    throw new DuplicateKeyException("Tracking ID " + record.getId() + " is already stored");
+                }
+            }
+            long pendingBefore = appended - durable;
+            for (int i = 0; i < records.size(); i++) {
+                append(records.get(i).getId(), encoded[i]);
+            }
+            long target = appended;
+            if (pendingBefore == 0 || target - durable >= fsyncBatchSize) {
+                fsyncRequested.signal();
+            }
+            if (waitForFsync) {
+                awaitDurable(target);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return records;
+    }
+
+    private void append(long id, byte[] encoded) {
+        ActiveSegment current = active;
+        if (current.segment().count == current.segment().capacity) {
+            current = roll();
+        }
+        Segment segment = current.segment();
+        int slot = segment.count;
+        segment.buffer.put(offsetOf(slot), encoded);
+        segment.count = slot + 1;
+        current.index().put(id, slot); // Publishes the record to lookups
+        appended++;
+    }
+
+    /**
+     * Forces the rest of the full segment, publishes its sorted index and continues in a new segment.
+     */
+    private ActiveSegment roll() {
+        ActiveSegment full = active;
+        Segment segment = full.segment();
+        segment.buffer.force(offsetOf(fsyncedSlot), (segment.count - fsyncedSlot) * RECORD_SIZE);
+        fsyncs.increment();
+        durable = appended;
+        fsynced.signalAll();
+
+        Segment next;
+        try {
+            next = createSegment(segment.number + 1);
+        } catch (IOException e) {
+            log.error("Failed to create journal segment {}: {}", segment.number + 1, e.getMessage(), e);
+            throw new DataAccessResourceFailureException("Failed to create journal segment", e);
+        }
+        List<SealedSegment> sealedSegments = new ArrayList<>(sealed);
+        sealedSegments.add(seal(segment));
+        sealed = List.copyOf(sealedSegments); // Before replacing active, so lookups never miss the full segment
+        active = new ActiveSegment(next, new ConcurrentHashMap<>());
+        fsyncedSlot = 0;
+        log.info("Tracking number journal rolled to segment {} after {} records", next.number, appended);
+        return active;
+    }
+
+    private void awaitDurable(long target) {
+        long remainingNanos = fsyncTimeoutNanos;
+        try {
+            while (durable < target) {
+                if (remainingNanos <= 0) {
+                    throw new DataAccessResourceFailureException(
+                            "Timed out after " + TimeUnit.NANOSECONDS.toMillis(fsyncTimeoutNanos) + " ms waiting for the journal fsync");
+                }
+                remainingNanos = fsynced.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while waiting for the journal fsync", e);
+        }
+    }
+
+    private void fsyncLoop() {
+        while (true) {
+            Segment segment;
+            int fromSlot;
+            int toSlot;
+            long target;
+            lock.lock();
+            try {
+                while (running && appended == durable) {
+                    fsyncRequested.await();
+                }
+                if (appended == durable) {
+                    return; // Stopped and nothing left to force
+                }
+                if (running && appended - durable < fsyncBatchSize && fsyncIntervalNanos > 0) {
+                    fsyncRequested.awaitNanos(fsyncIntervalNanos); // Let more records join this fsync
+                }
+                segment = active.segment();
+                fromSlot = fsyncedSlot;
+                toSlot = segment.count;
+                target = appended;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (toSlot > fromSlot) {
+                    segment.buffer.force(offsetOf(fromSlot), (toSlot - fromSlot) * RECORD_SIZE);
+                }
+            } catch (UncheckedIOException e) {
+                log.error("Journal fsync failed: {}", e.getMessage(), e);
+                LockSupport.parkNanos(Math.max(fsyncIntervalNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+                continue;
+            }
+
+            lock.lock();
+            try {
+                fsyncs.increment();
+                if (target > durable) {
+                    durable = target;
+                }
+                // A roll in the meantime has forced this segment completely and reset fsyncedSlot for the new one
+                if (active.segment() == segment && toSlot > fsyncedSlot) {
+                    fsyncedSlot = toSlot;
+                }
+                fsynced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Optional<TrackingNumberRecord> findById(long id) {
+        Location location = locate(id);
+        return location == null ? Optional.empty() : Optional.ofNullable(read(location.segment(), location.slot()));
+    }
+
+    @Override
+    public List<Long> findExistingIds(Collection<Long> ids) {
+        List<Long> existing = new ArrayList<>();
+        for (Long id : ids) {
+            if (locate(id) != null) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public Optional<TrackingNumberRecord> findByIdempotencyKey(String idempotencyKey) {
+        return Optional.empty(); // Idempotency keys are not journaled
+    }
+
+    @Override
+    public void forEachId(LongConsumer consumer) {
+        ActiveSegment current = active;
+        for (SealedSegment segment : sealed) {
+            for (long id : segment.ids()) {
+                consumer.accept(id);
+            }
+        }
+        current.index().keySet().forEach(consumer::accept);
+    }
+
+    private Location locate(long id) {
+        ActiveSegment current = active;
+        Integer slot = current.index().get(id);
+        if (slot != null) {
+            return new Location(current.segment(), slot);
+        }
+        // Newest first: recent tracking numbers are looked up most. IDs are time-ordered, so the range check skips most segments.
+        List<SealedSegment> segments = sealed;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            SealedSegment segment = segments.get(i);
+            long[] ids = segment.ids();
+            if (id < ids[0] || id > ids[ids.length - 1]) {
+                continue;
+            }
+            int position = Arrays.binarySearch(ids, id);
+            if (position >= 0) {
+                return new Location(segment.segment(), segment.slots()[position]);
+            }
+        }
+        return null;
+    }
+
+    private static SealedSegment seal(Segment segment) {
+        int count = segment.count;
+        long[] idsBySlot = new long[count];
+        for (int slot = 0; slot < count; slot++) {
+            idsBySlot[slot] = segment.buffer.getLong(offsetOf(slot) + ID);
+        }
+        // Concurrent requests append in roughly, but not exactly, ID order
+        Integer[] slotsById = new Integer[count];
+        for (int slot = 0; slot < count; slot++) {
+            slotsById[slot] = slot;
+        }
+        Arrays.sort(slotsById, Comparator.comparingLong(slot -> idsBySlot[slot]));
+
+        long[] ids = new long[count];
+        int[] slots = new int[count];
+        for (int i = 0; i < count; i++) {
+            slots[i] = slotsById[i];
+            ids[i] = idsBySlot[slots[i]];
+        }
+        return new SealedSegment(segment, ids, slots);
+    }
+
+    private Segment createSegment(long number) throws IOException {
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeBytes);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.putLong(12, number);
+        buffer.force(0, HEADER_SIZE);
+        channel.force(true); // The file's size and existence, not only its contents
+        return new Segment(number, channel, buffer);
+    }
+
+    private static Segment openSegment(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a tracking number journal segment: " + path);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != RECORD_SIZE) {
+            throw new IllegalStateException(String.format("Unsupported journal segment %s (format %d, record size %d)",
+                    path, buffer.getInt(4), buffer.getInt(8)));
+        }
+        return new Segment(buffer.getLong(12), channel, buffer);
+    }
+
+    /**
+     * Zeroes everything after the last intact record, so a torn record or leftovers of records that were never
+     * forced cannot be mistaken for data once new records are written before them.
+     */
+    private static void clearTail(Segment segment) {
+        int from = offsetOf(segment.count);
+        boolean cleared = false;
+        for (int position = from; position + Long.BYTES <= segment.buffer.capacity(); position += Long.BYTES) {
+            if (segment.buffer.getLong(position) != 0) {
+                segment.buffer.putLong(position, 0);
+                cleared = true;
+            }
+        }
+        if (cleared) {
+            segment.buffer.force(from, segment.buffer.capacity() - from);
+            log.warn("Discarded an incomplete record at the end of journal segment {}", segment.number);
+        }
+    }
+
+    private static int offsetOf(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private static byte[] encode(TrackingNumberRecord record) {
+        ByteBuffer bytes = ByteBuffer.allocate(RECORD_SIZE);
+        bytes.putLong(ID, record.getId());
+        putTimestamp(bytes, GENERATED_AT, GENERATED_AT_OFFSET, record.getGeneratedAt());
+        putTimestamp(bytes, ORDER_CREATED_AT, ORDER_CREATED_AT_OFFSET, record.getOrderCreatedAt());
+        bytes.putLong(WEIGHT_GRAMS, record.getWeight() == null
+                ? ABSENT : record.getWeight().setScale(3, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        if (record.getCustomerId() != null) {
+            bytes.putLong(CUSTOMER_ID_MSB, record.getCustomerId().getMostSignificantBits());
+            bytes.putLong(CUSTOMER_ID_LSB, record.getCustomerId().getLeastSignificantBits());
+        }
+        putCountry(bytes, ORIGIN_COUNTRY, record.getOriginCountryId());
+        putCountry(bytes, DESTINATION_COUNTRY, record.getDestinationCountryId());
+        bytes.putInt(CHECKSUM, checksum(bytes.array()));
+        return bytes.array();
+    }
+
+    /**
+     * @return The record in {@code slot}, or null if the slot holds no intact record.
+     */
+    private static TrackingNumberRecord read(Segment segment, int slot) {
+        byte[] raw = new byte[RECORD_SIZE];
+        segment.buffer.get(offsetOf(slot), raw);
+        ByteBuffer bytes = ByteBuffer.wrap(raw);
+        if (bytes.getInt(CHECKSUM) != checksum(raw)) {
+            return null;
+        }
+        long weightGrams = bytes.getLong(WEIGHT_GRAMS);
+        long customerIdMsb = bytes.getLong(CUSTOMER_ID_MSB);
+        long customerIdLsb = bytes.getLong(CUSTOMER_ID_LSB);
+        TrackingNumberRecord record = new TrackingNumberRecord(
+                bytes.getLong(ID),
+                getCountry(bytes, ORIGIN_COUNTRY),
+                getCountry(bytes, DESTINATION_COUNTRY),
+                weightGrams == ABSENT ? null : BigDecimal.valueOf(weightGrams, 3),
+                getTimestamp(bytes, ORDER_CREATED_AT, ORDER_CREATED_AT_OFFSET),
+                customerIdMsb == 0 && customerIdLsb == 0 ? null : new UUID(customerIdMsb, customerIdLsb)
+        );
+        record.setGeneratedAt(getTimestamp(bytes, GENERATED_AT, GENERATED_AT_OFFSET));
+        return record;
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record, 0, CHECKSUM);
+        return (int) crc.getValue();
+    }
+
+    private static void putTimestamp(ByteBuffer bytes, int micros, int offset, OffsetDateTime timestamp) {
+        if (timestamp == null) {
+            bytes.putLong(micros, ABSENT);
+            return;
+        }
+        Instant instant = timestamp.toInstant();
+        bytes.putLong(micros, Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000));
+        bytes.putInt(offset, timestamp.getOffset().getTotalSeconds());
+    }
+
+    private static OffsetDateTime getTimestamp(ByteBuffer bytes, int micros, int offset) {
+        long epochMicros = bytes.getLong(micros);
+        if (epochMicros == ABSENT) {
+            return null;
+        }
+        Instant instant = Instant.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L), Math.floorMod(epochMicros, 1_000_000L) * 1_000);
+        return instant.atOffset(ZoneOffset.ofTotalSeconds(bytes.getInt(offset)));
+    }
+
+    private static void putCountry(ByteBuffer bytes, int position, String country) {
+        if (country == null) {
+            return; // Stored as two zero bytes
+        }
+        byte[] ascii = country.getBytes(StandardCharsets.US_ASCII);
+        if (ascii.length != 2) {
+            throw new IllegalArgumentException("Country code must be 2 ASCII characters, was '" + country + "'");
+        }
+        bytes.put(position, ascii);
+    }
+
+    private static String getCountry(ByteBuffer bytes, int position) {
+        if (bytes.get(position) == 0) {
+            return null;
+        }
+        byte[] ascii = new byte[2];
+        bytes.get(position, ascii);
+        return new String(ascii, StandardCharsets.US_ASCII);
+    }
+
+    public long getRecordCount() {
+        return appended;
+    }
+
+    public long getPendingFsyncCount() {
+        return appended - durable;
+    }
+
+    public int getSegmentCount() {
+        return sealed.size() + 1;
+    }
+
+    public long getFsyncCount() {
+        return fsyncs.sum();
+    }
+
+    /**
+     * Stops accepting records, forces everything still pending and closes the segment files.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            fsyncRequested.signal();
+        } finally {
+            lock.unlock();
+        }
+        fsyncThread.join(TimeUnit.NANOSECONDS.toMillis(fsyncTimeoutNanos));
+
+        lock.lock();
+        try {
+            ActiveSegment current = active;
+            current.segment().buffer.force();
+            for (SealedSegment segment : sealed) {
+                closeQuietly(segment.segment());
+            }
+            closeQuietly(current.segment());
+        } finally {
+            lock.unlock();
+        }
+        log.info("Tracking number journal closed with {} records", appended);
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close(); // The mapping stays valid until it is garbage collected
+        } catch (IOException e) {
+            log.warn("Failed to close journal segment {}: {}", segment.number, e.getMessage());
+        }
+    }
+}
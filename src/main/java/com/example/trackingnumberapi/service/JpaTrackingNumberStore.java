@@ -0,0 +1,97 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.entity.TrackingNumberRecord;
+import com.example.trackingnumberapi.model.repository.TrackingNumberRecordRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link TrackingNumberStore} backed by the tracking_numbers table ({@link TrackingNumberRecordRepository}).
+ * The primary key and the unique idempotencyKey column enforce uniqueness. This is the default store
+ * (tracking.store.type=jpa).
+ * <p>
+ * Records are marked as persisted when they are flushed. If the transaction then rolls back they are marked new again,
+ * so a retry with the same entity (e.g. the write-behind queue retrying a failed group one record at a time) INSERTs
+ * rather than merging into a row that another record already holds.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaTrackingNumberStore implements TrackingNumberStore {
+
+    private static final int ID_PAGE_SIZE = 10_000;
+
+    private final TrackingNumberRecordRepository trackingNumberRepository;
+
+    public JpaTrackingNumberStore(TrackingNumberRecordRepository trackingNumberRepository) {
+        this.trackingNumberRepository = trackingNumberRepository;
+    }
+
+    @Override
+    @Transactional
+    public TrackingNumberRecord save(TrackingNumberRecord record) {
+        markNewAgainOnRollback(List.of(record));
+        return trackingNumberRepository.save(record);
+    }
+
+    @Override
+    @Transactional
+    public List<TrackingNumberRecord> saveAll(List<TrackingNumberRecord> records) {
+        markNewAgainOnRollback(records);
+        List<TrackingNumberRecord> savedRecords = trackingNumberRepository.saveAll(records);
+        trackingNumberRepository.flush(); // Surface constraint violations here rather than at commit
+        return savedRecords;
+    }
+
+    private static void markNewAgainOnRollback(List<TrackingNumberRecord> records) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    records.forEach(TrackingNumberRecord::markNewAgain);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Optional<TrackingNumberRecord> findById(long id) {
+        return trackingNumberRepository.findById(id);
+    }
+
+    @Override
+    public List<Long> findExistingIds(Collection<Long> ids) {
+        return trackingNumberRepository.findExistingIds(ids);
+    }
+
+    @Override
+    public Optional<TrackingNumberRecord> findByIdempotencyKey(String idempotencyKey) {
+        return trackingNumberRepository.findByIdempotencyKey(idempotencyKey);
+    }
+
+    /**
+     * Keyset pagination over the primary key, {@value #ID_PAGE_SIZE} IDs per query.
+     */
+    @Override
+    public void forEachId(LongConsumer consumer) {
+        long afterId = -1L;
+        List<Long> ids;
+        do {
+            ids = trackingNumberRepository.findIdsAfter(afterId, PageRequest.of(0, ID_PAGE_SIZE));
+            for (Long id : ids) {
+                consumer.accept(id);
+            }
+            if (!ids.isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == ID_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.trackingnumberapi.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free variant of {@link TrackingIdGenerator}.
+ * The last timestamp and the last sequence value are packed into a single atomic word
+ * and advanced with compare-and-set, so request threads never block on a monitor.
+ * The 41/10/12 bit layout, clock and clock-regression handling are the same as the synchronized generator.
+ */
+public class LockFreeTrackingIdGenerator extends TrackingIdGenerator {
+
+    // (lastTimestampMs << SEQUENCE_BITS) | sequence. -1 decodes to timestamp -1, so the first call starts a new millisecond.
+    private final AtomicLong state = new AtomicLong(-1L);
+    private final LongAdder casRetries = new LongAdder();
+
+    public LockFreeTrackingIdGenerator(long workerId) {
+        super(workerId);
+    }
+
+    public LockFreeTrackingIdGenerator(long workerId, long epochMs) {
+        super(workerId, epochMs);
+    }
+
+    LockFreeTrackingIdGenerator(long workerId, long epochMs, boolean announce) {
+        super(workerId, epochMs, announce);
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestampMs = current >> SEQUENCE_BITS;
+            long currentTimestampMs = timestampAfter(lastTimestampMs);
+
+            long sequence;
+            if (lastTimestampMs == currentTimestampMs) {
+                sequence = (current + 1) & MAX_SEQUENCE;
+                if (sequence == 0) {
+                    // Sequence exhausted for this millisecond; compete for slot 0 of the next one.
+                    currentTimestampMs = tilNextMillis(lastTimestampMs);
+                }
+            } else {
+                sequence = 0L;
+            }
+
+            if (state.compareAndSet(current, (currentTimestampMs << SEQUENCE_BITS) | sequence)) {
+                return composeId(currentTimestampMs, sequence);
+            }
+            // Another thread advanced the state first; re-read and try again.
+            casRetries.increment();
+        }
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            long current = state.get();
+            long lastTimestampMs = current >> SEQUENCE_BITS;
+            long currentTimestampMs = timestampAfter(lastTimestampMs);
+
+            long firstSequence = 0L;
+            if (lastTimestampMs == currentTimestampMs) {
+                firstSequence = (current & MAX_SEQUENCE) + 1;
+                if (firstSequence > MAX_SEQUENCE) {
+                    currentTimestampMs = tilNextMillis(lastTimestampMs);
+                    firstSequence = 0L;
+                }
+            }
+            long lastSequence = Math.min(MAX_SEQUENCE, firstSequence + (count - filled) - 1);
+
+            // One CAS claims the whole range [firstSequence, lastSequence] of this millisecond.
+            if (state.compareAndSet(current, (currentTimestampMs << SEQUENCE_BITS) | lastSequence)) {
+                for (long s = firstSequence; s <= lastSequence; s++) {
+                    ids[filled++] = composeId(currentTimestampMs, s);
+                }
+            } else {
+                casRetries.increment();
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public long getCasRetryCount() {
+        return casRetries.sum();
+    }
+}
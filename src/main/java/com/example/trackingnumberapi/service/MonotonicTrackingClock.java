@@ -0,0 +1,59 @@
+package com.example.trackingnumberapi.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Monotonic millisecond clock: the wall clock read once, advanced by {@link System#nanoTime()}.
+ * It never moves backwards when the wall clock is stepped back, so {@link TrackingIdGenerator} does not see regressions.
+ * <p>
+ * Every {@code resyncIntervalMs} the wall clock is read again and the clock jumps forward if the wall clock is ahead,
+ * so it does not fall behind real time. A wall clock that is behind is ignored until it catches up.
+ * Reading the clock does not allocate; only a re-anchoring does.
+ */
+public final class MonotonicTrackingClock implements TrackingClock {
+
+    private record Anchor(long wallClockMs, long nanoTime, long nextResyncNanos) {
+    }
+
+    private final AtomicReference<Anchor> anchor;
+    private final long resyncIntervalNanos;
+
+    /**
+     * @param resyncIntervalMs How often to re-read the wall clock; 0 disables re-anchoring.
+     */
+    public MonotonicTrackingClock(long resyncIntervalMs) {
+        if (resyncIntervalMs < 0) {
+            throw new IllegalArgumentException("Resync interval must not be negative: " + resyncIntervalMs);
+        }
+        this.resyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(resyncIntervalMs);
+        long nanoTime = System.nanoTime();
+        this.anchor = new AtomicReference<>(new Anchor(System.currentTimeMillis(), nanoTime, nanoTime + resyncIntervalNanos));
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        long nanoTime = System.nanoTime();
+        Anchor current = anchor.get();
+        long timestampMs = current.wallClockMs() + (nanoTime - current.nanoTime()) / 1_000_000L;
+        if (resyncIntervalNanos > 0 && nanoTime - current.nextResyncNanos() >= 0) {
+            return resync(current, timestampMs, nanoTime);
+        }
+        return timestampMs;
+    }
+
+    private long resync(Anchor current, long timestampMs, long nanoTime) {
+        long wallClockMs = System.currentTimeMillis();
+        Anchor next = wallClockMs > timestampMs
+                ? new Anchor(wallClockMs, nanoTime, nanoTime + resyncIntervalNanos)
+                : new Anchor(current.wallClockMs(), current.nanoTime(), nanoTime + resyncIntervalNanos);
+        if (anchor.compareAndSet(current, next)) {
+            return Math.max(wallClockMs, timestampMs);
+        }
+        // Another thread re-anchored first and may already have returned its (later) wall clock time, so read
+        // from its anchor rather than the stale one
+        Anchor latest = anchor.get();
+        long latestMs = latest.wallClockMs() + (System.nanoTime() - latest.nanoTime()) / 1_000_000L;
+        return Math.max(latestMs, timestampMs);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.trackingnumberapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Buffer of already generated IDs that absorbs bursts beyond the generator's 4096 IDs per millisecond.
+ * <p>
+ * A single background producer tops a bounded ring up to 'high-watermark' IDs with {@link TrackingIdGenerator#nextIds}
+ * whenever it drops below 'low-watermark'. Request threads take IDs with {@link #poll()}, a compare-and-set on the
+ * read index, without touching the generator lock. When the ring is empty {@link #poll()} returns -1 and the caller
+ * falls back to the generator.
+ * <p>
+ * IDs older than 'max-age-ms' are discarded rather than handed out, so a tracking number's embedded timestamp stays
+ * close to the moment it was issued. Buffered IDs were minted while the worker ID lease was valid, so they stay unique
+ * even if the lease is lost afterwards (the next owner only issues timestamps after the lease expiry).
+ * <p>
+ * Enabled with tracking.generator.buffer.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.generator.buffer.enabled", havingValue = "true")
+@Slf4j
+public class PreMintedIdBuffer {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long ERROR_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final TrackingIdGenerator idGenerator;
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final long maxAgeMs;
+
+    // Slots [head, tail) hold IDs. head is advanced by consumers (CAS), tail only by the producer.
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail = 0L;
+    private final AtomicBoolean refillRequested = new AtomicBoolean();
+    private final Thread producer;
+    private volatile boolean running = true;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    public PreMintedIdBuffer(TrackingIdGenerator idGenerator,
+                             @Value("${tracking.generator.buffer.capacity:16384}") int capacity,
+                             @Value("${tracking.generator.buffer.low-watermark:4096}") int lowWatermark,
+                             @Value("${tracking.generator.buffer.high-watermark:12288}") int highWatermark,
+                             @Value("${tracking.generator.buffer.max-age-ms:1000}") long maxAgeMs) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("ID buffer capacity must be a power of two. Configured: " + capacity);
+        }
+        if (lowWatermark < 0 || lowWatermark >= highWatermark || highWatermark > capacity) {
+            throw new IllegalArgumentException(String.format(
+                    "ID buffer watermarks must satisfy 0 <= low < high <= capacity. Configured: low=%d, high=%d, capacity=%d",
+                    lowWatermark, highWatermark, capacity));
+        }
+        this.idGenerator = idGenerator;
+        this.slots = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.maxAgeMs = maxAgeMs;
+        this.producer = new Thread(this::produceLoop, "tracking-id-prefill");
+        this.producer.setDaemon(true);
+    }
+
+    @PostConstruct
+    void start() {
+        producer.start();
+        log.info("Pre-minted ID buffer started (capacity: {}, low watermark: {}, high watermark: {})",
+                slots.length(), lowWatermark, highWatermark);
+    }
+
+    /**
+     * Takes the next buffered ID.
+     *
+     * @return The ID, or -1 if the buffer is empty (the caller should generate the ID directly).
+     */
+    public long poll() {
+        while (true) {
+            long readIndex = head.get();
+            if (readIndex >= tail) {
+                misses.increment();
+                requestRefill();
+                return -1L;
+            }
+            long id = slots.get((int) (readIndex & mask));
+            if (!head.compareAndSet(readIndex, readIndex + 1)) {
+                continue; // Another consumer took this slot
+            }
+            if (isStale(id, System.currentTimeMillis())) {
+                discarded.increment();
+                continue;
+            }
+            hits.increment();
+            if (tail - readIndex - 1 < lowWatermark) {
+                requestRefill();
+            }
+            return id;
+        }
+    }
+
+    private void requestRefill() {
+        if (refillRequested.compareAndSet(false, true)) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    private boolean isStale(long id, long nowMs) {
+        return nowMs - idGenerator.getTimestampFromId(id) > maxAgeMs;
+    }
+
+    private void produceLoop() {
+        while (running) {
+            try {
+                discardStale();
+                long occupancy = tail - head.get();
+                if (occupancy < lowWatermark || (refillRequested.get() && occupancy < highWatermark)) {
+                    fill((int) (highWatermark - occupancy));
+                }
+                refillRequested.set(false);
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            } catch (RuntimeException e) {
+                // E.g. clock regression beyond the tolerance or an expired worker lease; requests fall back to the generator
+                log.warn("Failed to refill the pre-minted ID buffer: {}", e.getMessage());
+                LockSupport.parkNanos(this, ERROR_BACKOFF_NANOS);
+            }
+        }
+    }
+
+    // Only the producer writes tail, and head only moves forward, so there is room for 'count' more IDs
+    private void fill(int count) {
+        long[] ids = idGenerator.nextIds(count);
+        long writeIndex = tail;
+        for (long id : ids) {
+            slots.lazySet((int) (writeIndex++ & mask), id);
+        }
+        tail = writeIndex; // Volatile write publishes the slots to consumers
+    }
+
+    // Drops aged IDs from the front while the buffer is idle, so request threads rarely have to skip them
+    private void discardStale() {
+        long nowMs = System.currentTimeMillis();
+        long readIndex = head.get();
+        while (readIndex < tail && isStale(slots.get((int) (readIndex & mask)), nowMs)) {
+            if (head.compareAndSet(readIndex, readIndex + 1)) {
+                discarded.increment();
+            }
+            readIndex = head.get();
+        }
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail - head.get());
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(producer);
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.trackingnumberapi.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Striped variant of {@link TrackingIdGenerator} for nodes that need more than 4096 IDs per millisecond.
+ * The low bits of the 10-bit worker field are taken over as a lane index: the configured worker ID
+ * occupies the high bits and every lane owns a separate lock-free sequence counter.
+ * Each thread is assigned a lane round-robin on its first call and keeps it, so aggregate throughput grows with
+ * the number of lanes while IDs stay globally unique (each lane has a distinct worker field), keep the 41/10/12
+ * layout and increase within a thread.
+ */
+public class StripedTrackingIdGenerator extends TrackingIdGenerator {
+
+    private final int laneBits;
+    private final int laneMask;
+    private final LockFreeTrackingIdGenerator[] lanes;
+    private final AtomicInteger nextLane = new AtomicInteger();
+    private final ThreadLocal<LockFreeTrackingIdGenerator> threadLane;
+
+    /**
+     * @param workerId  Unique ID for this worker/process. Must fit in the worker bits left over after the lane bits.
+     * @param laneCount Number of independent lanes, a power of two between 1 and 1024.
+     */
+    public StripedTrackingIdGenerator(long workerId, int laneCount) {
+        this(workerId, laneCount, CUSTOM_EPOCH_MS);
+    }
+
+    public StripedTrackingIdGenerator(long workerId, int laneCount, long epochMs) {
+        super(workerId, epochMs);
+        if (laneCount < 1 || laneCount > MAX_WORKER_ID + 1 || Integer.bitCount(laneCount) != 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Lane count must be a power of two between 1 and %d. Configured: %d", MAX_WORKER_ID + 1, laneCount));
+        }
+        this.laneBits = Integer.numberOfTrailingZeros(laneCount);
+        this.laneMask = laneCount - 1;
+
+        long maxStripedWorkerId = maxWorkerId(laneCount);
+        if (workerId > maxStripedWorkerId) {
+            throw new IllegalArgumentException(String.format(
+                    "Worker ID must be between 0 and %d when using %d lanes. Configured: %d", maxStripedWorkerId, laneCount, workerId));
+        }
+
+        this.lanes = new LockFreeTrackingIdGenerator[laneCount];
+        for (int lane = 0; lane < laneCount; lane++) {
+            lanes[lane] = new LockFreeTrackingIdGenerator((workerId << laneBits) | lane, epochMs, false);
+        }
+        this.threadLane = ThreadLocal.withInitial(() -> lanes[nextLane.getAndIncrement() & laneMask]);
+    }
+
+    /**
+     * @return The largest worker ID that can be configured with {@code laneCount} lanes.
+     */
+    public static long maxWorkerId(int laneCount) {
+        return MAX_WORKER_ID >> Integer.numberOfTrailingZeros(laneCount);
+    }
+
+    @Override
+    public long nextId() {
+        return currentLane().nextId();
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        return currentLane().nextIds(count);
+    }
+
+    @Override
+    public void setClock(TrackingClock clock) {
+        super.setClock(clock);
+        for (LockFreeTrackingIdGenerator lane : lanes) {
+            lane.setClock(clock);
+        }
+    }
+
+    @Override
+    public void setClockRegressionTolerance(ClockRegressionMode mode, long maxRegressionMs) {
+        super.setClockRegressionTolerance(mode, maxRegressionMs);
+        for (LockFreeTrackingIdGenerator lane : lanes) {
+            lane.setClockRegressionTolerance(mode, maxRegressionMs);
+        }
+    }
+
+    @Override
+    public void setLeaseValidUntil(long validUntilMs) {
+        super.setLeaseValidUntil(validUntilMs);
+        for (LockFreeTrackingIdGenerator lane : lanes) {
+            lane.setLeaseValidUntil(validUntilMs);
+        }
+    }
+
+    @Override
+    public void setWaitRecorders(LongConsumer lockWaitRecorder, LongConsumer sequenceWaitRecorder) {
+        super.setWaitRecorders(lockWaitRecorder, sequenceWaitRecorder);
+        for (LockFreeTrackingIdGenerator lane : lanes) {
+            lane.setWaitRecorders(lockWaitRecorder, sequenceWaitRecorder);
+        }
+    }
+
+    @Override
+    public long getSequenceExhaustedCount() {
+        long total = 0;
+        for (LockFreeTrackingIdGenerator lane : lanes) {
+            total += lane.getSequenceExhaustedCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getClockRegressionCount() {
+        long total = 0;
+        for (LockFreeTrackingIdGenerator lane : lanes) {
+            total += lane.getClockRegressionCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getCasRetryCount() {
+        long total = 0;
+        for (LockFreeTrackingIdGenerator lane : lanes) {
+            total += lane.getCasRetryCount();
+        }
+        return total;
+    }
+
+    private LockFreeTrackingIdGenerator currentLane() {
+        return threadLane.get();
+    }
+
+    /**
+     * Returns the configured worker ID of the node that generated the ID (the lane bits are stripped).
+     */
+    @Override
+    public long getWorkerIdFromId(long id) {
+        return super.getWorkerIdFromId(id) >> laneBits;
+    }
+
+    public long getLaneFromId(long id) {
+        return super.getWorkerIdFromId(id) & laneMask;
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+}
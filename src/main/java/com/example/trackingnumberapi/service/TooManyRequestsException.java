@@ -0,0 +1,36 @@
+package com.example.trackingnumberapi.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 429 Too Many Requests with a Retry-After header, thrown when admission control sheds a request
+ * (see {@link CustomerRateLimiter} and {@link AdaptiveConcurrencyLimiter}).
+ */
+public class TooManyRequestsException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return headers;
+    }
+
+    // Thrown for every shed request while overloaded, where a stack trace would only add cost
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
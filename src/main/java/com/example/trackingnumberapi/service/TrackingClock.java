@@ -0,0 +1,17 @@
+package com.example.trackingnumberapi.service;
+
+/**
+ * Millisecond time source for {@link TrackingIdGenerator}.
+ * Implementations are called on every generated ID, so they must be thread-safe and should not allocate.
+ */
+@FunctionalInterface
+public interface TrackingClock {
+
+    /** The wall clock ({@link System#currentTimeMillis()}). Follows NTP steps, including backwards ones. */
+    TrackingClock SYSTEM = System::currentTimeMillis;
+
+    /**
+     * @return The current time in milliseconds since 1970-01-01T00:00:00Z.
+     */
+    long currentTimeMillis();
+}
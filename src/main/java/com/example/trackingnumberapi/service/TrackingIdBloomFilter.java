@@ -0,0 +1,72 @@
+package com.example.trackingnumberapi.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over tracking IDs.
+ * {@link #mightContain} never returns false for an ID that was {@link #put}, so a negative answer
+ * means "definitely not issued". Bits are set with compare-and-set, so writers never block readers.
+ */
+public class TrackingIdBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions      Number of IDs the filter is sized for.
+     * @param falsePositiveProbability Target false positive rate at {@code expectedInsertions} (e.g. 0.01).
+     */
+    public TrackingIdBloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid Bloom filter sizing: expectedInsertions=%d, falsePositiveProbability=%s", expectedInsertions, falsePositiveProbability));
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(long id) {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1; // Odd, so successive probes do not repeat
+        for (int i = 0; i < hashFunctions; i++) {
+            long bitIndex = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            int word = (int) (bitIndex >>> 6);
+            long mask = 1L << bitIndex;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(long id) {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bitIndex = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    // SplitMix64 finalizer: spreads the mostly sequential tracking IDs over the whole bit array
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
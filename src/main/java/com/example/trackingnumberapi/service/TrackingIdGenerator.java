@@ -6,30 +6,54 @@ import org.springframework.beans.factory.annotation.Value;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
 
 
 public class TrackingIdGenerator {
 
     private static final int TIMESTAMP_BITS = 41;
-    private static final int WORKER_ID_BITS = 10;
-    private static final int SEQUENCE_BITS = 12;
+    static final int WORKER_ID_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
 
-    private static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
-    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
 
     private static final long TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
     private static final long WORKER_ID_SHIFT = SEQUENCE_BITS;
 
     // Custom Epoch (January 1, 2020, 00:00:00 UTC)
     private static final OffsetDateTime CUSTOM_EPOCH_DT = OffsetDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
-    private static final long CUSTOM_EPOCH_MS = CUSTOM_EPOCH_DT.toInstant().toEpochMilli();
+    static final long CUSTOM_EPOCH_MS = CUSTOM_EPOCH_DT.toInstant().toEpochMilli();
 
     private final long workerId;
     private final long epochMs;
 
     private long lastTimestampMs = -1L;
     private long sequence = 0L;
-    private final Object lock = new Object();
+    // A ReentrantLock rather than a synchronized monitor: on Java 21 a virtual thread blocked on a monitor
+    // pins its carrier thread, while a virtual thread waiting for a j.u.c. lock unmounts.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private static final LongConsumer NO_OP_RECORDER = nanos -> { };
+    // The clock has millisecond resolution, so the last (partial) millisecond of a wait is parked in short slices
+    private static final long FINAL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private TrackingClock clock = TrackingClock.SYSTEM;
+    private ClockRegressionMode clockRegressionMode = ClockRegressionMode.STRICT;
+    private long toleratedRegressionMs = 0L;
+    // Fence set by WorkerLeaseManager: no ID may carry a timestamp after this (unbounded without leasing)
+    private volatile long leaseValidUntilMs = Long.MAX_VALUE;
+
+    // Hot-path instrumentation. LongAdders are contention-free; the recorders are only called when a thread
+    // actually waits (contended lock, exhausted sequence), so the uncontended path does no extra work.
+    private final LongAdder sequenceExhaustions = new LongAdder();
+    private final LongAdder clockRegressions = new LongAdder();
+    private LongConsumer lockWaitRecorder = NO_OP_RECORDER;
+    private LongConsumer sequenceWaitRecorder = NO_OP_RECORDER;
 
     /**
      * Constructor for TrackingIdGenerator.
@@ -49,37 +73,107 @@ public class TrackingIdGenerator {
      * @param epochMs  Custom epoch in milliseconds.
      */
     public TrackingIdGenerator(long workerId, long epochMs) {
+        this(workerId, epochMs, true);
+    }
+
+    /**
+     * @param announce Whether to print the worker ID and epoch. False for generators that are part of another
+     *                 generator (the lanes of {@link StripedTrackingIdGenerator}), which announces itself once.
+     */
+    TrackingIdGenerator(long workerId, long epochMs, boolean announce) {
         if (workerId < 0 || workerId > MAX_WORKER_ID) {
             throw new IllegalArgumentException(String.format("Worker ID must be between 0 and %d. Configured: %d", MAX_WORKER_ID, workerId));
         }
         this.workerId = workerId;
         this.epochMs = epochMs;
-        System.out.println("trackingIdGenerator initialized with Worker ID: " + this.workerId + " and Epoch (ms): " + this.epochMs);
+        if (announce) {
+            System.out.println("trackingIdGenerator initialized with Worker ID: " + this.workerId + " and Epoch (ms): " + this.epochMs);
+        }
+    }
+
+    protected long currentTimeMs() {
+        return clock.currentTimeMillis();
+    }
+
+    /**
+     * Returns the timestamp for the next ID, given the timestamp of the last one. This is the current time unless the clock
+     * is behind {@code lastTimestampMs}; then the clock-regression mode decides (the result is never below {@code lastTimestampMs}).
+     *
+     * @throws IllegalStateException if the clock moved backwards by more than the tolerated regression.
+     */
+    protected long timestampAfter(long lastTimestampMs) {
+        long currentTimestampMs = currentTimeMs();
+        if (currentTimestampMs >= lastTimestampMs) {
+            return checkLease(currentTimestampMs);
+        }
+        clockRegressions.increment();
+        if (lastTimestampMs - currentTimestampMs > toleratedRegressionMs) {
+            throw clockMovedBackwards(lastTimestampMs, currentTimestampMs);
+        }
+        if (clockRegressionMode == ClockRegressionMode.BORROW) {
+            return checkLease(lastTimestampMs); // Keep using the last millisecond's sequence until the clock catches up
+        }
+        return checkLease(awaitTimestamp(lastTimestampMs, lastTimestampMs));
     }
 
-    private long currentTimeMs() {
-        return Instant.now().toEpochMilli();
+    /**
+     * Returns a timestamp after {@code lastTimestampMs} once its sequence is exhausted.
+     * In BORROW mode the next millisecond is taken right away while it is at most the tolerated regression ahead of the clock;
+     * otherwise the caller parks until the clock reaches it.
+     */
+    protected long tilNextMillis(long lastTimestampMs) {
+        sequenceExhaustions.increment();
+        long nextTimestampMs = lastTimestampMs + 1;
+        long earliestTimestampMs = clockRegressionMode == ClockRegressionMode.BORROW
+                ? nextTimestampMs - toleratedRegressionMs
+                : nextTimestampMs;
+        long currentTimestampMs = currentTimeMs();
+        if (currentTimestampMs < earliestTimestampMs) {
+            long waitStartNanos = System.nanoTime();
+            currentTimestampMs = awaitTimestamp(earliestTimestampMs, lastTimestampMs);
+            sequenceWaitRecorder.accept(System.nanoTime() - waitStartNanos);
+        }
+        return checkLease(Math.max(nextTimestampMs, currentTimestampMs));
     }
 
-    private long tilNextMillis(long lastTimestampMs) {
-        long timestampMs = currentTimeMs();
-        while (timestampMs <= lastTimestampMs) {
-            timestampMs = currentTimeMs();
+    private long checkLease(long timestampMs) {
+        if (timestampMs > leaseValidUntilMs) {
+            throw new WorkerLeaseExpiredException(String.format(
+                    "Worker ID %d lease is not valid at %d; refusing to generate id", workerId, timestampMs));
         }
         return timestampMs;
     }
 
-    public long nextId() {
-        synchronized (lock) {
-            long currentTimestampMs = currentTimeMs();
-
-            if (currentTimestampMs < lastTimestampMs) {
-                System.err.printf("Clock moved backwards. Refusing to generate id for %d milliseconds%n",
-                        lastTimestampMs - currentTimestampMs);
-                throw new IllegalStateException(String.format(
-                        "Clock moved backwards. Refusing to generate id for %d milliseconds",
-                        lastTimestampMs - currentTimestampMs));
+    /**
+     * Parks (rather than spins) until the clock reaches {@code targetTimestampMs}.
+     * Fails if, while waiting, the clock falls more than the tolerated regression behind {@code lastTimestampMs}.
+     */
+    private long awaitTimestamp(long targetTimestampMs, long lastTimestampMs) {
+        long currentTimestampMs = currentTimeMs();
+        while (currentTimestampMs < targetTimestampMs) {
+            if (lastTimestampMs - currentTimestampMs > toleratedRegressionMs) {
+                clockRegressions.increment();
+                throw clockMovedBackwards(lastTimestampMs, currentTimestampMs);
             }
+            long remainingMs = targetTimestampMs - currentTimestampMs;
+            LockSupport.parkNanos(remainingMs > 1 ? TimeUnit.MILLISECONDS.toNanos(remainingMs - 1) : FINAL_PARK_NANOS);
+            currentTimestampMs = currentTimeMs();
+        }
+        return currentTimestampMs;
+    }
+
+    private void acquireLock() {
+        if (!lock.tryLock()) {
+            long waitStartNanos = System.nanoTime();
+            lock.lock();
+            lockWaitRecorder.accept(System.nanoTime() - waitStartNanos);
+        }
+    }
+
+    public long nextId() {
+        acquireLock();
+        try {
+            long currentTimestampMs = timestampAfter(lastTimestampMs);
 
             if (lastTimestampMs == currentTimestampMs) {
                 sequence = (sequence + 1) & MAX_SEQUENCE;
@@ -92,21 +186,153 @@ public class TrackingIdGenerator {
 
             lastTimestampMs = currentTimestampMs;
 
-            return ((currentTimestampMs - epochMs) << TIMESTAMP_SHIFT) |
-                    (this.workerId << WORKER_ID_SHIFT) |
-                    sequence;
+            return composeId(currentTimestampMs, sequence);
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * Reserves {@code count} IDs in one step.
+     * Sequence values are handed out as contiguous ranges, spilling over into the following
+     * milliseconds when the current one does not have enough values left.
+     *
+     * @param count Number of IDs to reserve.
+     * @return The reserved IDs in ascending order.
+     */
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        acquireLock();
+        try {
+            int filled = 0;
+            while (filled < count) {
+                long currentTimestampMs = timestampAfter(lastTimestampMs);
+
+                long firstSequence = 0L;
+                if (lastTimestampMs == currentTimestampMs) {
+                    if (sequence == MAX_SEQUENCE) {
+                        currentTimestampMs = tilNextMillis(lastTimestampMs);
+                    } else {
+                        firstSequence = sequence + 1;
+                    }
+                }
+                long lastSequence = Math.min(MAX_SEQUENCE, firstSequence + (count - filled) - 1);
+
+                for (long s = firstSequence; s <= lastSequence; s++) {
+                    ids[filled++] = composeId(currentTimestampMs, s);
+                }
+                sequence = lastSequence;
+                lastTimestampMs = currentTimestampMs;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return ids;
+    }
+
     public String nextIdBase36() {
-        long id = nextId();
-        return Long.toString(id, 36).toUpperCase();
+        return Base36Codec.VARIABLE_WIDTH.encode(nextId());
+    }
+
+    /**
+     * Packs a timestamp (absolute, in milliseconds) and a sequence value into an ID
+     * using this generator's epoch and worker ID.
+     */
+    protected long composeId(long timestampMs, long sequence) {
+        return ((timestampMs - epochMs) << TIMESTAMP_SHIFT) |
+                (this.workerId << WORKER_ID_SHIFT) |
+                sequence;
+    }
+
+    protected IllegalStateException clockMovedBackwards(long lastTimestampMs, long currentTimestampMs) {
+        System.err.printf("Clock moved backwards. Refusing to generate id for %d milliseconds%n",
+                lastTimestampMs - currentTimestampMs);
+        return new IllegalStateException(String.format(
+                "Clock moved backwards. Refusing to generate id for %d milliseconds",
+                lastTimestampMs - currentTimestampMs));
+    }
+
+    /**
+     * Replaces the clock the generator reads its timestamps from (the system clock by default).
+     * Must be called before the generator is shared between threads (e.g. during application startup).
+     */
+    public void setClock(TrackingClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Configures how the generator reacts when the clock is behind the last used timestamp.
+     * In STRICT mode (the default) every regression fails. WAIT and BORROW tolerate regressions of up to
+     * {@code maxRegressionMs} and fail beyond it. Must be called before the generator is shared between threads.
+     */
+    public void setClockRegressionTolerance(ClockRegressionMode mode, long maxRegressionMs) {
+        if (maxRegressionMs < 0) {
+            throw new IllegalArgumentException("Tolerated clock regression must not be negative: " + maxRegressionMs);
+        }
+        this.clockRegressionMode = mode;
+        this.toleratedRegressionMs = mode == ClockRegressionMode.STRICT ? 0L : maxRegressionMs;
+    }
+
+    public ClockRegressionMode getClockRegressionMode() {
+        return clockRegressionMode;
+    }
+
+    /**
+     * Fences the generator to its worker ID lease: IDs with a timestamp after {@code validUntilMs} are refused with
+     * {@link WorkerLeaseExpiredException}. Called by {@link WorkerLeaseManager} on every renewal.
+     */
+    public void setLeaseValidUntil(long validUntilMs) {
+        this.leaseValidUntilMs = validUntilMs;
+    }
+
+    /**
+     * Installs the callbacks that receive wait times in nanoseconds: time spent waiting for the generator lock
+     * (only when it was contended) and time spent waiting for the next millisecond after the sequence was exhausted.
+     * Must be called before the generator is shared between threads (e.g. during application startup).
+     */
+    public void setWaitRecorders(LongConsumer lockWaitRecorder, LongConsumer sequenceWaitRecorder) {
+        this.lockWaitRecorder = lockWaitRecorder;
+        this.sequenceWaitRecorder = sequenceWaitRecorder;
+    }
+
+    /**
+     * @return How many times a caller found the 12-bit sequence exhausted and had to wait for the next millisecond.
+     */
+    public long getSequenceExhaustedCount() {
+        return sequenceExhaustions.sum();
+    }
+
+    /**
+     * @return How many times the clock was found behind the last used timestamp (tolerated or not).
+     *         In BORROW mode this includes calls made while the generator is running ahead on borrowed milliseconds.
+     */
+    public long getClockRegressionCount() {
+        return clockRegressions.sum();
+    }
+
+    /**
+     * @return How many compare-and-set attempts lost a race and were retried (always 0 for the lock-based generator).
+     */
+    public long getCasRetryCount() {
+        return 0L;
+    }
+
+    public long getWorkerId() {
+        return workerId;
     }
 
     public long getTimestampFromId(long id) {
         return (id >> TIMESTAMP_SHIFT) + epochMs;
     }
 
+    /**
+     * @return The smallest ID any worker can generate at or after {@code timestampMs}. Every ID below it was generated earlier,
+     *         so a time range maps to an ID range.
+     */
+    public long getFirstIdAt(long timestampMs) {
+        return Math.max(0L, timestampMs - epochMs) << TIMESTAMP_SHIFT;
+    }
+
     public long getWorkerIdFromId(long id) {
         return (id >> WORKER_ID_SHIFT) & MAX_WORKER_ID;
     }
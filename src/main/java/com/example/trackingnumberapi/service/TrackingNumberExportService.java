@@ -0,0 +1,152 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.repository.TrackingNumberExportView;
+import com.example.trackingnumberapi.model.repository.TrackingNumberRecordRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streams issued tracking numbers in a time window (optionally for one customer) as NDJSON or CSV.
+ * <p>
+ * The time window is turned into an ID range ({@link TrackingIdGenerator#getFirstIdAt}) and read with keyset pagination
+ * over the primary key, 'tracking.export.page-size' rows per query, as interface projections. Each page is written to the
+ * output stream before the next one is read, so memory use is the same for a thousand rows or a hundred million.
+ */
+@Service
+@Slf4j
+public class TrackingNumberExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final String CSV_HEADER = "tracking_number,generated_at,origin_country_id,destination_country_id,weight,order_created_at,customer_id";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final TrackingIdGenerator idGenerator;
+    private final Base36Codec trackingNumberCodec;
+    private final TrackingNumberRecordRepository trackingNumberRepository;
+    private final JsonFactory jsonFactory;
+    private final int pageSize;
+
+    public TrackingNumberExportService(TrackingIdGenerator idGenerator, Base36Codec trackingNumberCodec,
+                                       TrackingNumberRecordRepository trackingNumberRepository, ObjectMapper objectMapper,
+                                       @Value("${tracking.export.page-size:1000}") int pageSize) {
+        this.idGenerator = idGenerator;
+        this.trackingNumberCodec = trackingNumberCodec;
+        this.trackingNumberRepository = trackingNumberRepository;
+        this.jsonFactory = objectMapper.getFactory();
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Writes all tracking numbers generated in [from, to) to {@code out}, oldest first.
+     *
+     * @param from       Inclusive start of the window, or null for "since the epoch".
+     * @param to         Exclusive end of the window, or null for "now".
+     * @param customerId Only export this customer's tracking numbers, or null for all customers.
+     * @return The number of exported rows.
+     */
+    public long export(OffsetDateTime from, OffsetDateTime to, UUID customerId, Format format, OutputStream out) throws IOException {
+        long afterId = from == null ? -1L : idGenerator.getFirstIdAt(from.toInstant().toEpochMilli()) - 1;
+        long beforeId = to == null ? Long.MAX_VALUE : idGenerator.getFirstIdAt(to.toInstant().toEpochMilli());
+        Pageable page = PageRequest.of(0, pageSize);
+
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        JsonGenerator json = null;
+        if (format == Format.NDJSON) {
+            json = jsonFactory.createGenerator(writer);
+            json.setRootValueSeparator(null); // Documents are separated by the newline written after each one
+        }
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        List<TrackingNumberExportView> records;
+        do {
+            records = customerId == null
+                    ? trackingNumberRepository.findExportPage(afterId, beforeId, page)
+                    : trackingNumberRepository.findExportPageForCustomer(customerId, afterId, beforeId, page);
+            for (TrackingNumberExportView record : records) {
+                if (json != null) {
+                    writeJson(json, record);
+                } else {
+                    writeCsv(writer, record);
+                }
+            }
+            if (!records.isEmpty()) {
+                afterId = records.get(records.size() - 1).getId();
+                rows += records.size();
+            }
+        } while (records.size() == pageSize);
+
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        log.info("Exported {} tracking numbers ({}, customer: {})", rows, format, customerId != null ? customerId : "all");
+        return rows;
+    }
+
+    private void writeJson(JsonGenerator json, TrackingNumberExportView record) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("trackingNumber", trackingNumberCodec.encode(record.getId()));
+        json.writeStringField("generatedAt", jsonText(record.getGeneratedAt()));
+        json.writeStringField("originCountryId", record.getOriginCountryId());
+        json.writeStringField("destinationCountryId", record.getDestinationCountryId());
+        if (record.getWeight() != null) {
+            json.writeNumberField("weight", record.getWeight());
+        } else {
+            json.writeNullField("weight");
+        }
+        json.writeStringField("orderCreatedAt", jsonText(record.getOrderCreatedAt()));
+        json.writeStringField("customerId", jsonText(record.getCustomerId()));
+        json.writeEndObject();
+        json.writeRaw('\n'); // One JSON document per line
+    }
+
+    private void writeCsv(Writer writer, TrackingNumberExportView record) throws IOException {
+        // Tracking numbers, country codes, timestamps, decimals and UUIDs never contain ',', '"' or line breaks
+        writer.write(trackingNumberCodec.encode(record.getId()));
+        writer.write(',');
+        writer.write(toString(record.getGeneratedAt()));
+        writer.write(',');
+        writer.write(toString(record.getOriginCountryId()));
+        writer.write(',');
+        writer.write(toString(record.getDestinationCountryId()));
+        writer.write(',');
+        writer.write(record.getWeight() != null ? record.getWeight().toPlainString() : "");
+        writer.write(',');
+        writer.write(toString(record.getOrderCreatedAt()));
+        writer.write(',');
+        writer.write(toString(record.getCustomerId()));
+        writer.write('\n');
+    }
+
+    // Jackson writes a null string as JSON null
+    private static String jsonText(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static String toString(Object value) {
+        return value != null ? value.toString() : "";
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.dto.TrackingNumberDetailsResponse;
+import com.example.trackingnumberapi.model.entity.TrackingNumberRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read side of the tracking number API.
+ * Lookups are answered from, in order:
+ * <ol>
+ *     <li>a Bloom filter of all issued IDs, which answers "definitely not issued" without touching the database,</li>
+ *     <li>a size-bounded, TTL-evicting cache that {@link TrackingNumberService} populates on write,</li>
+ *     <li>the {@link TrackingNumberStore} (the database or the journal).</li>
+ * </ol>
+ * The Bloom filter only knows the IDs this node has seen (everything stored at startup plus everything issued since),
+ * so its negative answers are only trusted for IDs carrying this node's worker ID. Other IDs go to the database.
+ */
+@Service
+@Slf4j
+public class TrackingNumberLookupService {
+
+    private final TrackingIdGenerator idGenerator;
+    private final Base36Codec trackingNumberCodec;
+    private final TrackingNumberStore trackingNumberStore;
+    private final CustomerDictionary customerDictionary;
+    private final BoundedTtlCache<Long, TrackingNumberDetailsResponse> cache;
+    private final TrackingIdBloomFilter bloomFilter;
+
+    // Negative Bloom filter answers are only trusted once every stored ID has been added
+    private volatile boolean bloomFilterReady = false;
+
+    private final LongAdder bloomNegatives = new LongAdder();
+    private final LongAdder bloomFalsePositives = new LongAdder();
+
+    public TrackingNumberLookupService(TrackingIdGenerator idGenerator, Base36Codec trackingNumberCodec,
+                                       TrackingNumberStore trackingNumberStore,
+                                       CustomerDictionary customerDictionary,
+                                       @Value("${tracking.lookup.cache.max-size:100000}") int cacheMaxSize,
+                                       @Value("${tracking.lookup.cache.ttl-seconds:600}") long cacheTtlSeconds,
+                                       @Value("${tracking.lookup.bloom.expected-insertions:10000000}") long bloomExpectedInsertions,
+                                       @Value("${tracking.lookup.bloom.false-positive-probability:0.01}") double bloomFalsePositiveProbability) {
+        this.idGenerator = idGenerator;
+        this.trackingNumberCodec = trackingNumberCodec;
+        this.trackingNumberStore = trackingNumberStore;
+        this.customerDictionary = customerDictionary;
+        this.cache = new BoundedTtlCache<>(cacheMaxSize, cacheTtlSeconds, TimeUnit.SECONDS);
+        this.bloomFilter = new TrackingIdBloomFilter(bloomExpectedInsertions, bloomFalsePositiveProbability);
+    }
+
+    /**
+     * Loads every stored ID into the Bloom filter.
+     * IDs issued while this runs are added by {@link #recordIssued}, so nothing is missed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpBloomFilter() {
+        LongAdder loaded = new LongAdder();
+        trackingNumberStore.forEachId(id -> {
+            bloomFilter.put(id);
+            loaded.increment();
+        });
+
+        bloomFilterReady = true;
+        log.info("Tracking number Bloom filter ready with {} stored IDs ({} bits, {} hash functions)",
+                loaded.sum(), bloomFilter.getBitCount(), bloomFilter.getHashFunctions());
+    }
+
+    /**
+     * Makes a newly issued tracking number visible to lookups without a database round trip.
+     */
+    public void recordIssued(TrackingNumberRecord record) {
+        bloomFilter.put(record.getId());
+        cache.put(record.getId(), toDetails(record));
+    }
+
+    public Optional<TrackingNumberDetailsResponse> findByTrackingNumber(String trackingNumber) {
+        if (!Base36Codec.isValid(trackingNumber)) {
+            return Optional.empty();
+        }
+        long id = Base36Codec.decode(trackingNumber);
+        if (isDefinitelyNotIssued(id)) {
+            return Optional.empty();
+        }
+
+        TrackingNumberDetailsResponse cached = cache.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<TrackingNumberDetailsResponse> details = trackingNumberStore.findById(id).map(this::toDetails);
+        if (details.isPresent()) {
+            cache.put(id, details.get());
+        } else {
+            recordNotFound(id);
+        }
+        return details;
+    }
+
+    /**
+     * Checks several tracking numbers at once. Numbers that are not answered by the Bloom filter
+     * or the cache are checked with a single database query.
+     *
+     * @return For every requested tracking number, whether it has been issued (in request order).
+     */
+    public Map<String, Boolean> existsByTrackingNumbers(List<String> trackingNumbers) {
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        Map<String, Long> unresolved = new HashMap<>();
+
+        for (String trackingNumber : trackingNumbers) {
+            if (!Base36Codec.isValid(trackingNumber)) {
+                result.put(trackingNumber, false);
+                continue;
+            }
+            long id = Base36Codec.decode(trackingNumber);
+            if (isDefinitelyNotIssued(id)) {
+                result.put(trackingNumber, false);
+            } else if (cache.get(id) != null) {
+                result.put(trackingNumber, true);
+            } else {
+                result.put(trackingNumber, false);
+                unresolved.put(trackingNumber, id);
+            }
+        }
+
+        if (!unresolved.isEmpty()) {
+            Set<Long> existingIds = new HashSet<>(trackingNumberStore.findExistingIds(new HashSet<>(unresolved.values())));
+            unresolved.forEach((trackingNumber, id) -> {
+                if (existingIds.contains(id)) {
+                    result.put(trackingNumber, true);
+                } else {
+                    recordNotFound(id);
+                }
+            });
+        }
+        return result;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("cacheHits", getCacheHitCount());
+        stats.put("cacheMisses", getCacheMissCount());
+        stats.put("cacheEvictions", getCacheEvictionCount());
+        stats.put("cacheSize", (long) getCacheSize());
+        stats.put("bloomNegatives", getBloomNegativeCount());
+        stats.put("bloomFalsePositives", getBloomFalsePositiveCount());
+        return stats;
+    }
+
+    public long getCacheHitCount() {
+        return cache.getHits();
+    }
+
+    public long getCacheMissCount() {
+        return cache.getMisses();
+    }
+
+    public long getCacheEvictionCount() {
+        return cache.getEvictions();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    public long getBloomNegativeCount() {
+        return bloomNegatives.sum();
+    }
+
+    public long getBloomFalsePositiveCount() {
+        return bloomFalsePositives.sum();
+    }
+
+    private boolean isDefinitelyNotIssued(long id) {
+        if (isBloomFilterAuthoritative(id) && !bloomFilter.mightContain(id)) {
+            bloomNegatives.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void recordNotFound(long id) {
+        // The Bloom filter said "maybe" (otherwise we would not have reached the database) but the ID does not exist
+        if (isBloomFilterAuthoritative(id)) {
+            bloomFalsePositives.increment();
+        }
+    }
+
+    private boolean isBloomFilterAuthoritative(long id) {
+        return bloomFilterReady && idGenerator.getWorkerIdFromId(id) == idGenerator.getWorkerId();
+    }
+
+    private TrackingNumberDetailsResponse toDetails(TrackingNumberRecord record) {
+        Optional<CustomerDictionary.CustomerInfo> customer = customerDictionary.find(record.getCustomerId());
+        return new TrackingNumberDetailsResponse(
+                trackingNumberCodec.encode(record.getId()),
+                // Records acknowledged before their write-behind commit have no generatedAt yet; the ID carries it
+                record.getGeneratedAt() != null ? record.getGeneratedAt() : idGenerator.getDateTimeFromId(record.getId()),
+                record.getOriginCountryId(),
+                record.getDestinationCountryId(),
+                record.getWeight(),
+                record.getOrderCreatedAt(),
+                record.getCustomerId(),
+                customer.map(CustomerDictionary.CustomerInfo::name).orElse(null),
+                customer.map(CustomerDictionary.CustomerInfo::slug).orElse(null)
+        );
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.dto.RetentionStatusResponse;
+import com.example.trackingnumberapi.model.repository.TrackingNumberArchiveRepository;
+import com.example.trackingnumberapi.model.repository.TrackingNumberRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removes tracking number records older than 'max-age-days' from tracking_numbers, either deleting them ('purge')
+ * or moving them to tracking_numbers_archive ('archive').
+ * <p>
+ * IDs are time-ordered, so "older than the cutoff" is "ID below {@link TrackingIdGenerator#getFirstIdAt}(cutoff)".
+ * The job walks that range from the oldest ID in batches of 'batch-size' records. Each batch is one short transaction
+ * with a range DELETE on the primary key (preceded by an INSERT ... SELECT of the same range when archiving).
+ * Between batches the job sleeps for at least 'pause-ms' and long enough to stay below 'max-duty-cycle'.
+ * The cleanup then only holds locks and connections a small fraction of the time, which keeps live inserts fast.
+ * <p>
+ * Runs on 'cron' and on demand (POST /api/v1/tracking-numbers/retention/run). Enabled with tracking.retention.enabled=true.
+ */
+@Service
+@ConditionalOnProperty(name = "tracking.retention.enabled", havingValue = "true")
+@Slf4j
+public class TrackingNumberRetentionService {
+
+    private final TrackingIdGenerator idGenerator;
+    private final TrackingNumberRecordRepository trackingNumberRepository;
+    private final TrackingNumberArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxAge;
+    private final boolean archive;
+    private final int batchSize;
+    private final long pauseMs;
+    private final double maxDutyCycle;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Progress of the current or last run, written by the running job and read by status requests
+    private volatile OffsetDateTime cutoff;
+    private volatile OffsetDateTime startedAt;
+    private volatile OffsetDateTime finishedAt;
+    private volatile long batches;
+    private volatile long rows;
+    private volatile long lastProcessedId = -1L;
+    private volatile String lastError;
+
+    public TrackingNumberRetentionService(TrackingIdGenerator idGenerator,
+                                          TrackingNumberRecordRepository trackingNumberRepository,
+                                          TrackingNumberArchiveRepository archiveRepository,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${tracking.retention.max-age-days:365}") long maxAgeDays,
+                                          @Value("${tracking.retention.mode:purge}") String mode,
+                                          @Value("${tracking.retention.batch-size:5000}") int batchSize,
+                                          @Value("${tracking.retention.pause-ms:50}") long pauseMs,
+                                          @Value("${tracking.retention.max-duty-cycle:0.25}") double maxDutyCycle) {
+        if (!"purge".equals(mode) && !"archive".equals(mode)) {
+            throw new IllegalArgumentException(String.format(
+                    "Unknown tracking.retention.mode '%s'. Supported: purge, archive", mode));
+        }
+        if (maxDutyCycle <= 0 || maxDutyCycle > 1) {
+            throw new IllegalArgumentException("tracking.retention.max-duty-cycle must be in (0, 1]. Configured: " + maxDutyCycle);
+        }
+        this.idGenerator = idGenerator;
+        this.trackingNumberRepository = trackingNumberRepository;
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.archive = "archive".equals(mode);
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+        this.maxDutyCycle = maxDutyCycle;
+    }
+
+    @Scheduled(cron = "${tracking.retention.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (!run()) {
+            log.info("Skipping scheduled retention run; a run is already in progress");
+        }
+    }
+
+    /**
+     * Starts a run on a background thread.
+     *
+     * @return false if a run is already in progress.
+     */
+    public boolean startAsync() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            Thread worker = new Thread(this::runClaimed, "tracking-retention");
+            worker.setDaemon(true);
+            worker.start();
+        } catch (RuntimeException | Error e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Removes every record generated before now minus 'max-age-days', batch by batch, on the calling thread.
+     *
+     * @return false if a run was already in progress (nothing was done).
+     */
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        runClaimed();
+        return true;
+    }
+
+    /**
+     * The run itself. The caller has set {@code running}; it is cleared when the run ends.
+     */
+    private void runClaimed() {
+        try {
+            removeExpired();
+        } finally {
+            finishedAt = OffsetDateTime.now(ZoneOffset.UTC);
+            running.set(false);
+        }
+    }
+
+    private void removeExpired() {
+        OffsetDateTime runCutoff = OffsetDateTime.now(ZoneOffset.UTC).minus(maxAge);
+        long cutoffId = idGenerator.getFirstIdAt(runCutoff.toInstant().toEpochMilli());
+        cutoff = runCutoff;
+        startedAt = OffsetDateTime.now(ZoneOffset.UTC);
+        finishedAt = null;
+        batches = 0;
+        rows = 0;
+        lastProcessedId = -1L;
+        lastError = null;
+        log.info("Retention run started: {} records generated before {}", archive ? "archiving" : "purging", runCutoff);
+
+        try {
+            long afterId = -1L;
+            while (true) {
+                List<Long> ids = trackingNumberRepository.findIdsBetween(afterId, cutoffId, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long fromId = ids.get(0);
+                long toId = ids.get(ids.size() - 1);
+
+                long batchStartNanos = System.nanoTime();
+                Integer removed = transactionTemplate.execute(status -> {
+                    if (archive) {
+                        archiveRepository.copyIdRange(fromId, toId);
+                    }
+                    return trackingNumberRepository.deleteIdRange(fromId, toId);
+                });
+                long batchNanos = System.nanoTime() - batchStartNanos;
+
+                afterId = toId;
+                lastProcessedId = toId;
+                batches++;
+                rows += removed != null ? removed : 0;
+                if (batches % 100 == 0) {
+                    log.info("Retention progress: {} rows in {} batches, up to {}", rows, batches, idGenerator.getDateTimeFromId(toId));
+                }
+                throttle(batchNanos);
+            }
+            log.info("Retention run finished: {} rows {} in {} batches", rows, archive ? "archived" : "purged", batches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastError = "Interrupted";
+            log.warn("Retention run interrupted after {} rows", rows);
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("Retention run failed after {} rows: {}", rows, e.getMessage(), e);
+        }
+    }
+
+    // Sleeps so that batches take at most maxDutyCycle of the wall time, and never less than pauseMs
+    private void throttle(long batchNanos) throws InterruptedException {
+        long dutyCyclePauseNanos = (long) (batchNanos * (1 - maxDutyCycle) / maxDutyCycle);
+        long pauseNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(pauseMs), dutyCyclePauseNanos);
+        TimeUnit.NANOSECONDS.sleep(pauseNanos);
+    }
+
+    public RetentionStatusResponse getStatus() {
+        long processedId = lastProcessedId;
+        return new RetentionStatusResponse(
+                running.get(),
+                archive ? "archive" : "purge",
+                cutoff,
+                startedAt,
+                finishedAt,
+                batches,
+                rows,
+                processedId >= 0 ? idGenerator.getDateTimeFromId(processedId) : null,
+                lastError
+        );
+    }
+}
@@ -3,69 +3,268 @@ package com.example.trackingnumberapi.service;
 import com.example.trackingnumberapi.model.dto.TrackingNumberRequestParams;
 import com.example.trackingnumberapi.model.dto.TrackingNumberResponse;
 import com.example.trackingnumberapi.model.entity.TrackingNumberRecord;
-import com.example.trackingnumberapi.model.repository.TrackingNumberRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
 @Slf4j
 public class TrackingNumberService {
 
 
     private final TrackingIdGenerator idGenerator;
-    private final TrackingNumberRecordRepository trackingNumberRepository;
+    private final Base36Codec trackingNumberCodec;
+    private final TrackingNumberStore trackingNumberStore;
+    private final TrackingNumberLookupService lookupService;
+    private final CustomerDictionary customerDictionary;
+    private final TrackingNumberWriteBehindQueue writeBehindQueue; // null unless write-behind persistence is enabled
+    private final long writeBehindCommitTimeoutMs;
+    private final IdempotencyIndex idempotencyIndex; // null unless idempotent generation is enabled
+    private final long idempotencyWaitTimeoutMs;
+    private final PreMintedIdBuffer idBuffer; // null unless the pre-minted ID buffer is enabled
+    private final CustomerRateLimiter rateLimiter; // null unless per-customer rate limiting is enabled
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter; // null unless the concurrency limit is enabled
+
+    private final Timer saveTimer;
+    private final Timer saveAllTimer;
+    private final Counter generationRetries;
+    private final Counter idempotentReplays;
+    private final Counter rateLimitRejections;
+    private final Counter concurrencyLimitRejections;
 
     private static final int MAX_GENERATION_RETRIES = 5; // Max retries for generating a unique ID if a collision occurs
 
-    public TrackingNumberService(TrackingIdGenerator idGenerator, TrackingNumberRecordRepository trackingNumberRepository) {
+    public TrackingNumberService(TrackingIdGenerator idGenerator, Base36Codec trackingNumberCodec,
+                                 TrackingNumberStore trackingNumberStore,
+                                 TrackingNumberLookupService lookupService,
+                                 CustomerDictionary customerDictionary,
+                                 ObjectProvider<TrackingNumberWriteBehindQueue> writeBehindQueue,
+                                 @Value("${tracking.persistence.write-behind.commit-timeout-ms:5000}") long writeBehindCommitTimeoutMs,
+                                 ObjectProvider<IdempotencyIndex> idempotencyIndex,
+                                 @Value("${tracking.idempotency.wait-timeout-ms:5000}") long idempotencyWaitTimeoutMs,
+                                 ObjectProvider<PreMintedIdBuffer> idBuffer,
+                                 ObjectProvider<CustomerRateLimiter> rateLimiter,
+                                 ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter,
+                                 MeterRegistry meterRegistry) {
         this.idGenerator = idGenerator;
-        this.trackingNumberRepository = trackingNumberRepository;
+        this.trackingNumberCodec = trackingNumberCodec;
+        this.trackingNumberStore = trackingNumberStore;
+        this.lookupService = lookupService;
+        this.customerDictionary = customerDictionary;
+        this.writeBehindQueue = writeBehindQueue.getIfAvailable();
+        this.writeBehindCommitTimeoutMs = writeBehindCommitTimeoutMs;
+        this.idempotencyIndex = idempotencyIndex.getIfAvailable();
+        this.idempotencyWaitTimeoutMs = idempotencyWaitTimeoutMs;
+        this.idBuffer = idBuffer.getIfAvailable();
+        this.rateLimiter = rateLimiter.getIfAvailable();
+        this.concurrencyLimiter = concurrencyLimiter.getIfAvailable();
+
+        this.saveTimer = Timer.builder("tracking.repository.save")
+                .description("Latency of inserting tracking number records")
+                .tag("operation", "save")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        this.saveAllTimer = Timer.builder("tracking.repository.save")
+                .description("Latency of inserting tracking number records")
+                .tag("operation", "saveAll")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        this.generationRetries = Counter.builder("tracking.generation.retries")
+                .description("Saves retried with a new ID after a unique constraint violation")
+                .register(meterRegistry);
+        this.idempotentReplays = Counter.builder("tracking.idempotency.replays")
+                .description("Requests answered with the response of an earlier request with the same idempotency key")
+                .register(meterRegistry);
+        this.rateLimitRejections = Counter.builder("tracking.admission.rejections")
+                .description("Requests rejected with 429 by admission control")
+                .tag("reason", "rate-limit")
+                .register(meterRegistry);
+        this.concurrencyLimitRejections = Counter.builder("tracking.admission.rejections")
+                .description("Requests rejected with 429 by admission control")
+                .tag("reason", "concurrency-limit")
+                .register(meterRegistry);
     }
 
     public TrackingNumberResponse generateAndSaveTrackingNumber(TrackingNumberRequestParams params) {
+        return generateAndSaveTrackingNumber(params, null);
+    }
+
+    /**
+     * Generates and stores a tracking number for an order.
+     * When idempotent generation is enabled, a retry of the same request (same Idempotency-Key header, or the same
+     * order identity when no header is sent) returns the original response instead of minting a new number.
+     * When admission control is enabled, requests over the customer's rate limit or over the concurrency limit
+     * are rejected right away with a {@link TooManyRequestsException}.
+     *
+     * @param params               The order.
+     * @param idempotencyKeyHeader Value of the Idempotency-Key header, or null.
+     */
+    public TrackingNumberResponse generateAndSaveTrackingNumber(TrackingNumberRequestParams params, String idempotencyKeyHeader) {
+        if (rateLimiter != null) {
+            checkRateLimit(params.getCustomerId(), 1);
+        }
+        if (concurrencyLimiter == null) {
+            return generateAndSaveIdempotently(params, idempotencyKeyHeader);
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            concurrencyLimitRejections.increment();
+            throw new TooManyRequestsException("The service is overloaded. Please retry later.", 1);
+        }
+        try {
+            return generateAndSaveIdempotently(params, idempotencyKeyHeader);
+        } finally {
+            concurrencyLimiter.release();
+        }
+    }
+
+    private void checkRateLimit(UUID customerId, int permits) {
+        long waitNanos = rateLimiter.tryAcquire(customerId, permits);
+        if (waitNanos > 0) {
+            rateLimitRejections.increment();
+            throw new TooManyRequestsException("Rate limit exceeded for this customer. Please retry later.",
+                    (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private TrackingNumberResponse generateAndSaveIdempotently(TrackingNumberRequestParams params, String idempotencyKeyHeader) {
+        if (idempotencyIndex == null) {
+            return generateAndStore(params, null);
+        }
+
+        String idempotencyKey = idempotencyIndex.keyFor(params, idempotencyKeyHeader);
+        CompletableFuture<TrackingNumberResponse> claim = new CompletableFuture<>();
+        CompletableFuture<TrackingNumberResponse> original = idempotencyIndex.claim(idempotencyKey, claim);
+        if (original != null) {
+            return awaitOriginalResponse(original, params);
+        }
+
+        try {
+            TrackingNumberResponse response = generateAndStore(params, idempotencyKey);
+            claim.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            claim.completeExceptionally(e); // Lets the next retry claim the key again
+            throw e;
+        }
+    }
+
+    private TrackingNumberResponse awaitOriginalResponse(CompletableFuture<TrackingNumberResponse> original, TrackingNumberRequestParams params) {
+        try {
+            TrackingNumberResponse response = original.get(idempotencyWaitTimeoutMs, TimeUnit.MILLISECONDS);
+            idempotentReplays.increment();
+            log.info("Duplicate request for customer {}; returning original tracking number {}", params.getCustomerId(), response.getTrackingNumber());
+            return response;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResponseStatusException responseStatusException) {
+                throw responseStatusException;
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred. Please try again later.");
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with the same idempotency key is still being processed. Please retry later.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for the original request.");
+        }
+    }
+
+    /**
+     * Looks up the record stored by an earlier request with the same idempotency key
+     * (evicted from the in-memory index, handled before a restart or by another instance).
+     */
+    private Optional<TrackingNumberResponse> findOriginalResponse(String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return Optional.empty();
+        }
+        Optional<TrackingNumberResponse> original = trackingNumberStore.findByIdempotencyKey(idempotencyKey)
+                .map(record -> new TrackingNumberResponse(trackingNumberCodec.encode(record.getId()), record.getGeneratedAt()));
+        original.ifPresent(response -> idempotentReplays.increment());
+        return original;
+    }
+
+    /**
+     * Records the customer's name and slug in the customers table (only written when new or changed).
+     */
+    private void registerCustomer(TrackingNumberRequestParams params) {
+        try {
+            customerDictionary.ensure(params.getCustomerId(), params.getCustomerName(), params.getCustomerSlug());
+        } catch (DataAccessException e) {
+            log.error("Database access error while saving customer {}: {}", params.getCustomerId(), e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Database error: Failed to save customer.");
+        }
+    }
+
+    private TrackingNumberResponse generateAndStore(TrackingNumberRequestParams params, String idempotencyKey) {
+        registerCustomer(params);
+        if (writeBehindQueue != null) {
+            return generateAndQueueTrackingNumber(params, idempotencyKey);
+        }
+
         String generatedTrackingNumber = null;
         TrackingNumberRecord savedRecord = null;
         int attempts = 0;
 
         while (attempts < MAX_GENERATION_RETRIES) {
             try {
-                generatedTrackingNumber = idGenerator.nextIdBase36(); // Uses the ID Generator
-
-                // Check against regex (Base36 should always match if length is okay)
-                if (!generatedTrackingNumber.matches("^[A-Z0-9]{1,16}$")) {
-                    log.warn("Generated ID {} does not match regex. Retrying... Attempt: {}", generatedTrackingNumber, attempts + 1);
-                    attempts++;
-                    continue;
-                }
+                long id = nextId(); // Uses the ID Generator
+                // Base36Codec only emits [0-9A-Z] and at most 13 characters, so the result always matches ^[A-Z0-9]{1,16}$
+                generatedTrackingNumber = trackingNumberCodec.encode(id);
 
                 TrackingNumberRecord newRecord = new TrackingNumberRecord(
-                        generatedTrackingNumber,
+                        id,
                         params.getOriginCountryId(),
                         params.getDestinationCountryId(),
                         params.getWeight(),
                         params.getCreatedAt(),
-                        params.getCustomerId(),
-                        params.getCustomerName(),
-                        params.getCustomerSlug()
+                        params.getCustomerId()
                 );
+                newRecord.setIdempotencyKey(idempotencyKey);
 
-                // The database's unique constraint is the final arbiter of uniqueness
-                savedRecord = trackingNumberRepository.save(newRecord); // Interacts with the repository
+                // The store (the primary key constraint, or the journal's ID index) is the final arbiter of uniqueness
+                long saveStartNanos = System.nanoTime();
+                try {
+                    savedRecord = trackingNumberStore.save(newRecord);
+                } finally {
+                    recordSaveLatency(System.nanoTime() - saveStartNanos);
+                }
+                lookupService.recordIssued(savedRecord);
                 log.info("Successfully saved tracking number: {}", generatedTrackingNumber);
                 break; // If save is successful, break the loop
 
             } catch (DataIntegrityViolationException e) {
+                Optional<TrackingNumberResponse> originalResponse = findOriginalResponse(idempotencyKey);
+                if (originalResponse.isPresent()) {
+                    log.info("Idempotency key already used for customer {}; returning original tracking number {}", params.getCustomerId(), originalResponse.get().getTrackingNumber());
+                    return originalResponse.get();
+                }
+                generationRetries.increment();
                 log.warn("Collision detected for tracking number: {}. Retrying... Attempt: {}. Error: {}", generatedTrackingNumber, (attempts + 1), e.getMessage());
             } catch (DataAccessException e) {
                 log.error("Database access error while generating/saving tracking number for customer {}: {}", params.getCustomerId(), e.getMessage(), e);
                 throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Database error: Failed to save tracking number.");
             } catch (IllegalStateException e) {
-                log.error("ID generation error: {}", e.getMessage());
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate unique ID due to clock issues or generator configuration.");
+                throw idGenerationFailed(e);
             } catch (Exception e) {
                 log.error("An unexpected error occurred during tracking number generation/saving for customer {}: {}", params.getCustomerId(), e.getMessage(), e);
                 throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred. Please try again later.");
@@ -79,8 +278,197 @@ public class TrackingNumberService {
         }
 
         return new TrackingNumberResponse(
-                savedRecord.getTrackingNumber(),
+                generatedTrackingNumber,
                 savedRecord.getGeneratedAt()
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Records a single save in the save timer and feeds it to the adaptive concurrency limit.
+     */
+    private void recordSaveLatency(long nanos) {
+        saveTimer.record(nanos, TimeUnit.NANOSECONDS);
+        sampleConcurrencyLimit(nanos);
+    }
+
+    private void sampleConcurrencyLimit(long saveNanos) {
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.onSample(saveNanos);
+        }
+    }
+
+    /**
+     * Takes an ID from the pre-minted buffer if it is enabled and not empty, otherwise from the generator.
+     */
+    private long nextId() {
+        if (idBuffer != null) {
+            long id = idBuffer.poll();
+            if (id >= 0) {
+                return id;
+            }
+        }
+        return idGenerator.nextId();
+    }
+
+    private ResponseStatusException idGenerationFailed(IllegalStateException e) {
+        log.error("ID generation error: {}", e.getMessage());
+        if (e instanceof WorkerLeaseExpiredException) {
+            // Another instance may own this worker ID now; the request can be retried elsewhere
+            return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "This instance cannot generate tracking numbers right now. Please try again later.");
+        }
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate unique ID due to clock issues or generator configuration.");
+    }
+
+    /**
+     * Write-behind variant of {@link #generateAndSaveTrackingNumber}: the record is handed to the
+     * {@link TrackingNumberWriteBehindQueue} and stored with the next group commit.
+     * Depending on 'tracking.persistence.write-behind.ack' the response is returned right after enqueueing
+     * or once the group commit containing the record has succeeded.
+     */
+    private TrackingNumberResponse generateAndQueueTrackingNumber(TrackingNumberRequestParams params, String idempotencyKey) {
+        long id;
+        try {
+            id = nextId();
+        } catch (IllegalStateException e) {
+            throw idGenerationFailed(e);
+        }
+        String generatedTrackingNumber = trackingNumberCodec.encode(id);
+
+        TrackingNumberRecord newRecord = new TrackingNumberRecord(
+                id,
+                params.getOriginCountryId(),
+                params.getDestinationCountryId(),
+                params.getWeight(),
+                params.getCreatedAt(),
+                params.getCustomerId()
+        );
+        newRecord.setIdempotencyKey(idempotencyKey);
+
+        CompletableFuture<TrackingNumberRecord> committed;
+        long enqueueStartNanos = System.nanoTime();
+        try {
+            committed = writeBehindQueue.submit(newRecord);
+        } catch (RejectedExecutionException e) {
+            sampleConcurrencyLimit(System.nanoTime() - enqueueStartNanos); // Timed out waiting for queue space
+            log.warn("Rejected tracking number {} for customer {}: {}", generatedTrackingNumber, params.getCustomerId(), e.getMessage());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The service is overloaded. Please try again later.");
+        }
+
+        if (!writeBehindQueue.isAcknowledgeAfterCommit()) {
+            // Waiting for queue space is this request's save; it grows when the group commits fall behind
+            sampleConcurrencyLimit(System.nanoTime() - enqueueStartNanos);
+            lookupService.recordIssued(newRecord);
+            // The record is not persisted yet; the ID itself carries its generation time.
+            return new TrackingNumberResponse(generatedTrackingNumber, idGenerator.getDateTimeFromId(id));
+        }
+
+        long commitWaitStartNanos = System.nanoTime();
+        try {
+            TrackingNumberRecord savedRecord = committed.get(writeBehindCommitTimeoutMs, TimeUnit.MILLISECONDS);
+            lookupService.recordIssued(savedRecord);
+            log.info("Successfully saved tracking number: {}", generatedTrackingNumber);
+            return new TrackingNumberResponse(generatedTrackingNumber, savedRecord.getGeneratedAt());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataIntegrityViolationException) {
+                Optional<TrackingNumberResponse> originalResponse = findOriginalResponse(idempotencyKey);
+                if (originalResponse.isPresent()) {
+                    return originalResponse.get();
+                }
+            }
+            log.error("Group commit failed for tracking number {}: {}", generatedTrackingNumber, e.getCause().getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Database error: Failed to save tracking number.");
+        } catch (TimeoutException e) {
+            log.error("Timed out after {} ms waiting for the group commit of tracking number {}", writeBehindCommitTimeoutMs, generatedTrackingNumber);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out saving tracking number. Please try again later.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while saving tracking number.");
+        } finally {
+            sampleConcurrencyLimit(System.nanoTime() - commitWaitStartNanos); // The group commit is this request's save
+        }
+    }
+
+    /**
+     * Generates one tracking number per order in a single step.
+     * The IDs are reserved from the generator as one contiguous block and all records are inserted
+     * in one transaction, using JDBC batching (see hibernate.jdbc.batch_size).
+     * <p>
+     * Not transactional itself: customers are registered first, each in its own short transaction, so a request never
+     * holds a pooled connection while waiting for a second one. Only {@link TrackingNumberStore#saveAll} is transactional.
+     * <p>
+     * With the rate limit enabled every order costs its customer one request from the bucket. Customers are charged
+     * in order, so when a later customer is rejected the earlier ones keep their charge. The concurrency limit does not
+     * apply: a batch's latency says nothing about the latency of single requests.
+     *
+     * @param paramsList The orders to generate tracking numbers for.
+     * @return One response per order, in the same order as the input.
+     * @throws TooManyRequestsException if a customer's orders exceed its rate limit.
+     */
+    public List<TrackingNumberResponse> generateAndSaveTrackingNumbers(List<TrackingNumberRequestParams> paramsList) {
+        if (rateLimiter != null) {
+            Map<UUID, Integer> ordersPerCustomer = new LinkedHashMap<>();
+            for (TrackingNumberRequestParams params : paramsList) {
+                ordersPerCustomer.merge(params.getCustomerId(), 1, Integer::sum);
+            }
+            ordersPerCustomer.forEach(this::checkRateLimit);
+        }
+        for (TrackingNumberRequestParams params : paramsList) {
+            registerCustomer(params);
+        }
+        long[] ids;
+        try {
+            ids = idGenerator.nextIds(paramsList.size());
+        } catch (IllegalStateException e) {
+            throw idGenerationFailed(e);
+        }
+
+        List<TrackingNumberRecord> newRecords = new ArrayList<>(paramsList.size());
+        for (int i = 0; i < ids.length; i++) {
+            TrackingNumberRequestParams params = paramsList.get(i);
+            newRecords.add(new TrackingNumberRecord(
+                    ids[i],
+                    params.getOriginCountryId(),
+                    params.getDestinationCountryId(),
+                    params.getWeight(),
+                    params.getCreatedAt(),
+                    params.getCustomerId()
+            ));
+        }
+
+        List<TrackingNumberRecord> savedRecords;
+        long saveStartNanos = System.nanoTime();
+        try {
+            savedRecords = trackingNumberStore.saveAll(newRecords);
+        } catch (DataAccessException e) {
+            log.error("Database access error while saving {} tracking numbers: {}", newRecords.size(), e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Database error: Failed to save tracking numbers.");
+        }
+        saveAllTimer.record(System.nanoTime() - saveStartNanos, TimeUnit.NANOSECONDS);
+        log.info("Successfully saved {} tracking numbers", savedRecords.size());
+
+        recordIssuedAfterCommit(savedRecords);
+
+        List<TrackingNumberResponse> responses = new ArrayList<>(savedRecords.size());
+        for (TrackingNumberRecord savedRecord : savedRecords) {
+            responses.add(new TrackingNumberResponse(trackingNumberCodec.encode(savedRecord.getId()), savedRecord.getGeneratedAt()));
+        }
+        return responses;
+    }
+
+    /**
+     * Makes the records visible to lookups once the surrounding transaction has committed, so a rollback
+     * (e.g. a failure after the insert) does not leave records in the lookup cache that were never stored.
+     */
+    private void recordIssuedAfterCommit(List<TrackingNumberRecord> records) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            records.forEach(lookupService::recordIssued);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                records.forEach(lookupService::recordIssued);
+            }
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.entity.TrackingNumberRecord;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongConsumer;
+
+/**
+ * Persistence engine for issued tracking numbers, used by {@link TrackingNumberService},
+ * {@link TrackingNumberWriteBehindQueue} and {@link TrackingNumberLookupService}.
+ * <p>
+ * Selected with tracking.store.type:
+ * <ul>
+ *     <li>{@code jpa} (default): {@link JpaTrackingNumberStore}, the tracking_numbers table.</li>
+ *     <li>{@code journal}: {@link JournalTrackingNumberStore}, an append-only memory-mapped journal.</li>
+ * </ul>
+ * Failures are reported as Spring {@link org.springframework.dao.DataAccessException}s. In particular, storing an ID
+ * (or idempotency key) that is already stored throws a {@link org.springframework.dao.DataIntegrityViolationException}.
+ */
+public interface TrackingNumberStore {
+
+    /**
+     * Stores one record and sets its generatedAt.
+     *
+     * @return The stored record.
+     */
+    TrackingNumberRecord save(TrackingNumberRecord record);
+
+    /**
+     * Stores all records, or none of them if any of them cannot be stored.
+     *
+     * @return The stored records, in the same order.
+     */
+    List<TrackingNumberRecord> saveAll(List<TrackingNumberRecord> records);
+
+    Optional<TrackingNumberRecord> findById(long id);
+
+    /**
+     * @return The subset of {@code ids} that has a record.
+     */
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Finds the record created by the first request that used an idempotency key.
+     * Stores that do not keep idempotency keys return an empty Optional.
+     */
+    Optional<TrackingNumberRecord> findByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Passes every stored ID to {@code consumer}, without loading whole records. Used to warm up in-memory indexes.
+     */
+    void forEachId(LongConsumer consumer);
+}
@@ -0,0 +1,229 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.entity.TrackingNumberRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for {@link TrackingNumberService}.
+ * Request threads put records into a bounded queue; a single writer thread drains it and stores
+ * the records with group commits (one {@link TrackingNumberStore#saveAll} per batch). A batch is committed when it
+ * reaches 'max-batch-size' records or when 'max-batch-delay-ms' has passed since its first record,
+ * whichever comes first.
+ * <p>
+ * Enabled with tracking.persistence.write-behind.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.persistence.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class TrackingNumberWriteBehindQueue {
+
+    private record PendingWrite(TrackingNumberRecord record, CompletableFuture<TrackingNumberRecord> committed) {
+    }
+
+    private final TrackingNumberStore trackingNumberStore;
+    private final BlockingQueue<PendingWrite> queue;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+    private final long enqueueTimeoutMs;
+    private final long shutdownTimeoutMs;
+    private final boolean acknowledgeAfterCommit;
+    private final Thread writer;
+
+    private final DistributionSummary batchSizes;
+    private final Timer commitTimer;
+    private final Counter rejections;
+
+    private volatile boolean running = true;
+
+    public TrackingNumberWriteBehindQueue(TrackingNumberStore trackingNumberStore,
+                                          @Value("${tracking.persistence.write-behind.queue-capacity:10000}") int queueCapacity,
+                                          @Value("${tracking.persistence.write-behind.max-batch-size:500}") int maxBatchSize,
+                                          @Value("${tracking.persistence.write-behind.max-batch-delay-ms:5}") long maxBatchDelayMs,
+                                          @Value("${tracking.persistence.write-behind.enqueue-timeout-ms:50}") long enqueueTimeoutMs,
+                                          @Value("${tracking.persistence.write-behind.shutdown-timeout-ms:30000}") long shutdownTimeoutMs,
+                                          @Value("${tracking.persistence.write-behind.ack:commit}") String ack,
+                                          MeterRegistry meterRegistry) {
+        if (!"commit".equals(ack) && !"enqueue".equals(ack)) {
+            throw new IllegalArgumentException(String.format(
+                    "Unknown tracking.persistence.write-behind.ack '%s'. Supported: commit, enqueue", ack));
+        }
+        this.trackingNumberStore = trackingNumberStore;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMs);
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.acknowledgeAfterCommit = "commit".equals(ack);
+        this.writer = new Thread(this::drainLoop, "tracking-write-behind");
+
+        Gauge.builder("tracking.write.behind.queue.size", queue, BlockingQueue::size)
+                .description("Records waiting for their group commit")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("tracking.write.behind.batch.size")
+                .description("Records per group commit")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("tracking.write.behind.commit")
+                .description("Latency of one group commit")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        this.rejections = Counter.builder("tracking.write.behind.rejections")
+                .description("Records rejected because the queue stayed full or was shutting down")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        writer.start();
+        log.info("Write-behind persistence started (capacity: {}, max batch: {}, ack after {})",
+                queue.remainingCapacity(), maxBatchSize, acknowledgeAfterCommit ? "commit" : "enqueue");
+    }
+
+    /**
+     * Queues a record for the next group commit.
+     * Blocks for at most 'enqueue-timeout-ms' when the queue is full.
+     *
+     * @param record The record to persist.
+     * @return A future completed with the saved record once its group commit succeeded.
+     * @throws RejectedExecutionException if the queue stays full (backpressure) or the queue is shutting down.
+     */
+    public CompletableFuture<TrackingNumberRecord> submit(TrackingNumberRecord record) {
+        if (!running) {
+            rejections.increment();
+            throw new RejectedExecutionException("Write-behind queue is shutting down");
+        }
+        PendingWrite pendingWrite = new PendingWrite(record, new CompletableFuture<>());
+        boolean accepted;
+        try {
+            accepted = queue.offer(pendingWrite, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            rejections.increment();
+            throw new RejectedExecutionException("Write-behind queue is full");
+        }
+        return pendingWrite.committed();
+    }
+
+    /**
+     * @return true if callers should wait for the group commit before acknowledging, false if enqueueing is enough.
+     */
+    public boolean isAcknowledgeAfterCommit() {
+        return acknowledgeAfterCommit;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + maxBatchDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                commit(batch);
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<TrackingNumberRecord> records = new ArrayList<>(batch.size());
+        for (PendingWrite pendingWrite : batch) {
+            records.add(pendingWrite.record());
+        }
+
+        batchSizes.record(batch.size());
+        long commitStartNanos = System.nanoTime();
+        try {
+            trackingNumberStore.saveAll(records); // All or nothing
+            commitTimer.record(System.nanoTime() - commitStartNanos, TimeUnit.NANOSECONDS);
+            for (PendingWrite pendingWrite : batch) {
+                pendingWrite.committed().complete(pendingWrite.record());
+            }
+            log.debug("Group commit of {} tracking numbers succeeded", batch.size());
+        } catch (RuntimeException e) {
+            // Isolate the failing record(s) so one bad row does not fail the whole group.
+            log.warn("Group commit of {} tracking numbers failed: {}. Retrying records one by one.", batch.size(), e.getMessage());
+            for (PendingWrite pendingWrite : batch) {
+                saveSingle(pendingWrite);
+            }
+        }
+    }
+
+    private void saveSingle(PendingWrite pendingWrite) {
+        TrackingNumberRecord record = pendingWrite.record();
+        try {
+            pendingWrite.committed().complete(trackingNumberStore.save(record));
+        } catch (RuntimeException e) {
+            log.error("Failed to persist tracking ID {}: {}", record.getId(), e.getMessage(), e);
+            pendingWrite.committed().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Stops accepting records and flushes everything still queued before the datasource goes away.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(shutdownTimeoutMs);
+        if (writer.isAlive()) {
+            log.warn("Write-behind writer did not finish within {} ms; {} records still queued", shutdownTimeoutMs, queue.size());
+            writer.interrupt();
+            return;
+        }
+        // Records offered concurrently with the shutdown flag may have arrived after the writer exited.
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        commit(remaining);
+        log.info("Write-behind persistence stopped");
+    }
+}
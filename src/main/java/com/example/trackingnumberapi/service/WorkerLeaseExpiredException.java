@@ -0,0 +1,12 @@
+package com.example.trackingnumberapi.service;
+
+/**
+ * Thrown by {@link TrackingIdGenerator} when its worker ID lease (see {@link WorkerLeaseManager}) is no longer valid,
+ * so another instance may already be using the same worker ID.
+ */
+public class WorkerLeaseExpiredException extends IllegalStateException {
+
+    public WorkerLeaseExpiredException(String message) {
+        super(message);
+    }
+}
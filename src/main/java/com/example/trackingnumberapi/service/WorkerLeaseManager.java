@@ -0,0 +1,197 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.entity.WorkerLease;
+import com.example.trackingnumberapi.model.repository.WorkerLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assigns this instance a worker ID from a lease table in the application's datasource, so replicas do not need a
+ * hand-assigned tracking.worker.id.
+ * <ul>
+ *     <li>On startup a never-used worker ID is claimed with an INSERT (the primary key decides races between instances),
+ *     or else an expired lease is taken over with a conditional UPDATE.</li>
+ *     <li>A heartbeat renews the lease every 'heartbeat-interval-ms' for another 'duration-ms'.</li>
+ *     <li>The generator is fenced: it refuses to issue IDs with timestamps after the lease expiry minus 'max-clock-skew-ms'.
+ *     If renewals fail (database unavailable) generation stops when the lease runs out and resumes on the next successful renewal.
+ *     If the lease was taken over by another instance, generation stops for good and the instance reports itself not ready.</li>
+ *     <li>On shutdown the lease is released (it expires 'max-clock-skew-ms' later).</li>
+ * </ul>
+ * Enabled with tracking.worker.lease.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.worker.lease.enabled", havingValue = "true")
+@Slf4j
+public class WorkerLeaseManager {
+
+    private final WorkerLeaseRepository leaseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long leaseDurationMs;
+    private final long heartbeatIntervalMs;
+    private final long maxClockSkewMs;
+    private final String ownerId;
+    private final ScheduledExecutorService heartbeat;
+
+    private int workerId = -1;
+    private volatile TrackingIdGenerator generator;
+    private volatile Instant expiresAt;
+
+    public WorkerLeaseManager(WorkerLeaseRepository leaseRepository, ApplicationEventPublisher eventPublisher,
+                              @Value("${tracking.worker.lease.duration-ms:30000}") long leaseDurationMs,
+                              @Value("${tracking.worker.lease.heartbeat-interval-ms:10000}") long heartbeatIntervalMs,
+                              @Value("${tracking.worker.lease.max-clock-skew-ms:1000}") long maxClockSkewMs) {
+        if (heartbeatIntervalMs <= 0 || leaseDurationMs <= heartbeatIntervalMs + maxClockSkewMs) {
+            throw new IllegalArgumentException(String.format(
+                    "Worker lease duration (%d ms) must be longer than the heartbeat interval (%d ms) plus the maximum clock skew (%d ms)",
+                    leaseDurationMs, heartbeatIntervalMs, maxClockSkewMs));
+        }
+        this.leaseRepository = leaseRepository;
+        this.eventPublisher = eventPublisher;
+        this.leaseDurationMs = leaseDurationMs;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.maxClockSkewMs = maxClockSkewMs;
+        String hostName = hostName();
+        this.ownerId = hostName.substring(0, Math.min(hostName.length(), 100)) + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "worker-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Claims a worker ID between 0 and {@code maxWorkerId}, preferring IDs that have never been leased.
+     *
+     * @return The claimed worker ID.
+     * @throws IllegalStateException if every worker ID in the range is leased.
+     */
+    public synchronized long claim(long maxWorkerId) {
+        if (workerId >= 0) {
+            return workerId;
+        }
+        Instant now = Instant.now();
+        Instant leaseExpiresAt = now.plusMillis(leaseDurationMs);
+
+        Set<Integer> leasedWorkerIds = new HashSet<>(leaseRepository.findLeasedWorkerIds());
+        for (int candidate = 0; candidate <= maxWorkerId; candidate++) {
+            if (leasedWorkerIds.contains(candidate)) {
+                continue;
+            }
+            try {
+                leaseRepository.saveAndFlush(new WorkerLease(candidate, ownerId, now, leaseExpiresAt));
+                return acquired(candidate, leaseExpiresAt, "claimed");
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Worker ID {} was claimed by another instance first", candidate);
+            }
+        }
+
+        for (Integer candidate : leaseRepository.findExpiredWorkerIds(now)) {
+            if (candidate <= maxWorkerId && leaseRepository.takeOverExpired(candidate, ownerId, now, leaseExpiresAt) == 1) {
+                return acquired(candidate, leaseExpiresAt, "took over expired lease of");
+            }
+        }
+        throw new IllegalStateException(String.format("No free worker ID between 0 and %d; all are leased", maxWorkerId));
+    }
+
+    private long acquired(int claimedWorkerId, Instant leaseExpiresAt, String how) {
+        this.workerId = claimedWorkerId;
+        this.expiresAt = leaseExpiresAt;
+        log.info("Instance {} {} worker ID {} (lease valid until {})", ownerId, how, claimedWorkerId, leaseExpiresAt);
+        return claimedWorkerId;
+    }
+
+    /**
+     * Fences {@code trackingIdGenerator} to the claimed lease and starts the heartbeat that keeps it valid.
+     */
+    public void attach(TrackingIdGenerator trackingIdGenerator) {
+        if (workerId < 0) {
+            throw new IllegalStateException("No worker ID has been claimed");
+        }
+        this.generator = trackingIdGenerator;
+        trackingIdGenerator.setLeaseValidUntil(fenceFor(expiresAt));
+        heartbeat.scheduleWithFixedDelay(this::renew, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void renew() {
+        Instant renewedExpiresAt = Instant.now().plusMillis(leaseDurationMs);
+        try {
+            if (leaseRepository.updateExpiry(workerId, ownerId, renewedExpiresAt) == 1) {
+                expiresAt = renewedExpiresAt;
+                generator.setLeaseValidUntil(fenceFor(renewedExpiresAt));
+            } else {
+                leaseLost();
+            }
+        } catch (RuntimeException e) {
+            // Keep generating until the current lease runs out; the fence stops the generator then.
+            log.warn("Failed to renew the lease of worker ID {} (valid until {}): {}", workerId, expiresAt, e.getMessage());
+        }
+    }
+
+    private void leaseLost() {
+        generator.setLeaseValidUntil(Long.MIN_VALUE);
+        heartbeat.shutdown();
+        log.error("Lease of worker ID {} was taken over by another instance; ID generation stopped", workerId);
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+    }
+
+    private long fenceFor(Instant leaseExpiresAt) {
+        return leaseExpiresAt.toEpochMilli() - maxClockSkewMs;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    @PreDestroy
+    void release() {
+        heartbeat.shutdownNow();
+        if (workerId < 0) {
+            return;
+        }
+        if (generator != null) {
+            generator.setLeaseValidUntil(Long.MIN_VALUE);
+        }
+        try {
+            // Released leases expire after the clock skew margin, so an instance whose clock is behind ours
+            // cannot take the worker ID over and reissue timestamps we already used.
+            if (leaseRepository.updateExpiry(workerId, ownerId, Instant.now().plusMillis(maxClockSkewMs)) == 1) {
+                log.info("Released worker ID {}", workerId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to release the lease of worker ID {}; it expires at {}: {}", workerId, expiresAt, e.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.trackingnumberapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Base36CodecTest {
+
+    private static final Base36Codec VARIABLE = Base36Codec.VARIABLE_WIDTH;
+    private static final Base36Codec FIXED = Base36Codec.FIXED_WIDTH;
+
+    @Test
+    void roundTripsTheBoundaries() {
+        assertEquals("0", VARIABLE.encode(0));
+        assertEquals("Z", VARIABLE.encode(35));
+        assertEquals("10", VARIABLE.encode(36));
+        assertEquals("1Y2P0IJ32E8E7", VARIABLE.encode(Long.MAX_VALUE));
+
+        long[] ids = {0, 1, 35, 36, 36L * 36 - 1, 36L * 36, Long.MAX_VALUE / 36, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+        for (long id : ids) {
+            assertEquals(id, Base36Codec.decode(VARIABLE.encode(id)));
+            assertEquals(id, Base36Codec.decode(FIXED.encode(id)));
+            assertEquals(Long.toString(id, 36).toUpperCase(), VARIABLE.encode(id));
+        }
+    }
+
+    @Test
+    void fixedWidthPadsToThirteenCharactersAndSortsInIdOrder() {
+        assertEquals("0000000000000", FIXED.encode(0));
+        assertEquals("00000000000ZZ", FIXED.encode(36L * 36 - 1));
+        assertEquals("1Y2P0IJ32E8E7", FIXED.encode(Long.MAX_VALUE));
+        assertEquals(Base36Codec.MAX_LENGTH, FIXED.encodedLength(1));
+
+        long[] ids = {0, 35, 36, 1_000_000, 1L << 40, Long.MAX_VALUE};
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(FIXED.encode(ids[i - 1]).compareTo(FIXED.encode(ids[i])) < 0);
+        }
+    }
+
+    @Test
+    void writesIntoCallerBuffers() {
+        char[] chars = {'#', '#', '#', '#', '#'};
+        assertEquals(2, VARIABLE.encodeTo(36L * 36 - 1, chars, 1));
+        assertArrayEquals(new char[]{'#', 'Z', 'Z', '#', '#'}, chars);
+
+        byte[] bytes = new byte[Base36Codec.MAX_LENGTH + 1];
+        assertEquals(Base36Codec.MAX_LENGTH, FIXED.encodeTo(36, bytes, 1));
+        assertEquals("0000000000010", new String(bytes, 1, Base36Codec.MAX_LENGTH));
+    }
+
+    @Test
+    void decodesMixedCase() {
+        assertEquals(Long.MAX_VALUE, Base36Codec.decode("1y2p0ij32e8e7"));
+        assertEquals(Long.MAX_VALUE, Base36Codec.decode("1Y2p0Ij32E8e7"));
+        assertEquals(36L * 36 - 1, Base36Codec.decode("zZ"));
+        assertTrue(Base36Codec.isValid("aBc"));
+    }
+
+    @Test
+    void rejectsValuesOutOfRange() {
+        // Long.MAX_VALUE + 1 and the largest 13-character value
+        for (String value : new String[]{"1Y2P0IJ32E8E8", "ZZZZZZZZZZZZZ"}) {
+            assertThrows(NumberFormatException.class, () -> Base36Codec.decode(value));
+            assertFalse(Base36Codec.isValid(value));
+        }
+        assertThrows(IllegalArgumentException.class, () -> VARIABLE.encode(-1));
+    }
+
+    @Test
+    void rejectsMalformedValues() {
+        for (String value : new String[]{"", "00000000000001", "ABC-1", " ABC", "ABC\u00E9", "\u0661"}) {
+            assertThrows(NumberFormatException.class, () -> Base36Codec.decode(value), value);
+            assertFalse(Base36Codec.isValid(value), value);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.trackingnumberapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The refill rate is 1 request per second, so nothing refills while a test runs.
+ */
+class CustomerRateLimiterTest {
+
+    private final CustomerRateLimiter limiter = new CustomerRateLimiter(1, 10, 1000);
+
+    @Test
+    void admitsUpToBurstThenRejects() {
+        UUID customer = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquire(customer));
+        }
+        assertTrue(limiter.tryAcquire(customer) > 0);
+        assertEquals(0, limiter.tryAcquire(UUID.randomUUID()), "other customers have their own bucket");
+    }
+
+    @Test
+    void chargesOnePermitPerOrder() {
+        UUID customer = UUID.randomUUID();
+        assertEquals(0, limiter.tryAcquire(customer, 7));
+        assertTrue(limiter.tryAcquire(customer, 4) > 0);
+        assertEquals(0, limiter.tryAcquire(customer, 3));
+        assertTrue(limiter.tryAcquire(customer) > 0);
+    }
+
+    @Test
+    void requestLargerThanBurstIsAdmittedOnlyFromAFullBucketAndLeavesDebt() {
+        UUID customer = UUID.randomUUID();
+        assertEquals(0, limiter.tryAcquire(customer, 50));
+        long waitNanos = limiter.tryAcquire(customer);
+        // 50 permits from a bucket of 10 leave 40 owed, so the next request fits after about 41 s at 1/s
+        assertTrue(waitNanos > 40_000_000_000L && waitNanos <= 41_000_000_000L, Long.toString(waitNanos));
+
+        UUID partlyUsed = UUID.randomUUID();
+        assertEquals(0, limiter.tryAcquire(partlyUsed));
+        assertTrue(limiter.tryAcquire(partlyUsed, 50) > 0);
+    }
+
+    @Test
+    void rejectsNonPositivePermits() {
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire(UUID.randomUUID(), 0));
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.entity.TrackingNumberRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against real segment files in a temporary directory, with 1 MB segments.
+ */
+class JournalTrackingNumberStoreTest {
+
+    private static final int SEGMENT_CAPACITY = (1024 * 1024 - JournalTrackingNumberStore.RECORD_SIZE) / JournalTrackingNumberStore.RECORD_SIZE;
+
+    @TempDir
+    Path directory;
+
+    private JournalTrackingNumberStore store;
+    private long nextId = 1_000_000L;
+
+    @BeforeEach
+    void openStore() throws IOException {
+        store = open();
+    }
+
+    @AfterEach
+    void closeStore() throws InterruptedException {
+        store.shutdown();
+    }
+
+    @Test
+    void reopeningRecoversEveryRecord() throws Exception {
+        List<TrackingNumberRecord> saved = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            saved.add(store.save(newRecord()));
+        }
+        saved.addAll(store.saveAll(newRecords(150)));
+
+        reopen();
+
+        assertEquals(200, store.getRecordCount());
+        for (TrackingNumberRecord record : saved) {
+            assertSameRecord(record, store.findById(record.getId()).orElseThrow());
+        }
+        List<Long> ids = new ArrayList<>();
+        store.forEachId(ids::add);
+        assertEquals(200, ids.size());
+    }
+
+    @Test
+    void corruptedLastRecordIsDiscardedAndAppendingContinuesAfterIt() throws Exception {
+        store.saveAll(newRecords(10));
+        TrackingNumberRecord torn = store.save(newRecord());
+        store.shutdown();
+        // A crash in the middle of writing the 11th record: its checksum no longer matches
+        flipByte(onlySegment(), offsetOf(10) + 20);
+
+        store = open();
+        assertEquals(10, store.getRecordCount());
+        assertTrue(store.findById(torn.getId()).isEmpty());
+
+        TrackingNumberRecord next = store.save(newRecord());
+        TrackingNumberRecord retried = store.save(copyOf(torn));
+        reopen();
+
+        assertEquals(12, store.getRecordCount());
+        assertSameRecord(next, store.findById(next.getId()).orElseThrow());
+        assertSameRecord(retried, store.findById(retried.getId()).orElseThrow());
+    }
+
+    @Test
+    void bytesAfterTheLastRecordAreCleared() throws Exception {
+        store.saveAll(newRecords(5));
+        store.shutdown();
+        // Leftovers of a record that was never completed, two slots after the last intact one
+        flipByte(onlySegment(), offsetOf(6) + 3);
+
+        store = open();
+        assertEquals(5, store.getRecordCount());
+        store.saveAll(newRecords(3)); // Writes slots 5 to 7, over the leftovers
+        reopen();
+
+        assertEquals(8, store.getRecordCount());
+    }
+
+    @Test
+    void rollsToANewSegmentAtCapacityAndStillFindsSealedRecords() throws Exception {
+        List<TrackingNumberRecord> saved = new ArrayList<>();
+        while (saved.size() < SEGMENT_CAPACITY + 100) {
+            saved.addAll(store.saveAll(newRecords(1000)));
+        }
+
+        assertEquals(2, store.getSegmentCount());
+        assertFound(saved);
+
+        reopen();
+        assertEquals(2, store.getSegmentCount());
+        assertEquals(saved.size(), store.getRecordCount());
+        assertFound(saved);
+        assertThrows(DuplicateKeyException.class, () -> store.save(copyOf(saved.get(0))));
+    }
+
+    @Test
+    void saveAllRejectsDuplicateIdsAndStoresNothing() {
+        TrackingNumberRecord stored = store.save(newRecord());
+
+        TrackingNumberRecord fresh = newRecord();
+        assertThrows(DuplicateKeyException.class, () -> store.saveAll(List.of(fresh, copyOf(stored))));
+        TrackingNumberRecord twice = newRecord();
+        assertThrows(DuplicateKeyException.class, () -> store.saveAll(List.of(twice, copyOf(twice))));
+
+        assertEquals(1, store.getRecordCount());
+        assertTrue(store.findById(fresh.getId()).isEmpty());
+        assertTrue(store.findById(twice.getId()).isEmpty());
+        assertEquals(List.of(stored.getId()), store.findExistingIds(List.of(stored.getId(), fresh.getId(), twice.getId())));
+    }
+
+    @Test
+    void nullAndAbsentFieldsRoundTrip() throws Exception {
+        TrackingNumberRecord empty = store.save(new TrackingNumberRecord(nextId++, null, null, null, null, null));
+        TrackingNumberRecord full = store.save(new TrackingNumberRecord(nextId++, "MY", "ID", new BigDecimal("1234567.5"),
+                OffsetDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_000, ZoneOffset.ofHoursMinutes(5, 45)), UUID.randomUUID()));
+
+        reopen();
+
+        TrackingNumberRecord emptyRead = store.findById(empty.getId()).orElseThrow();
+        assertNull(emptyRead.getOriginCountryId());
+        assertNull(emptyRead.getDestinationCountryId());
+        assertNull(emptyRead.getWeight());
+        assertNull(emptyRead.getOrderCreatedAt());
+        assertNull(emptyRead.getCustomerId());
+        assertEquals(empty.getGeneratedAt(), emptyRead.getGeneratedAt());
+
+        TrackingNumberRecord fullRead = store.findById(full.getId()).orElseThrow();
+        assertSameRecord(full, fullRead);
+        assertEquals(new BigDecimal("1234567.500"), fullRead.getWeight());
+        assertEquals(ZoneOffset.ofHoursMinutes(5, 45), fullRead.getOrderCreatedAt().getOffset());
+    }
+
+    private JournalTrackingNumberStore open() throws IOException {
+        JournalTrackingNumberStore journal = new JournalTrackingNumberStore(directory.toString(), 1, "batch", 1, 256, 5000);
+        journal.start();
+        return journal;
+    }
+
+    private void reopen() throws Exception {
+        store.shutdown();
+        store = open();
+    }
+
+    private TrackingNumberRecord newRecord() {
+        return new TrackingNumberRecord(nextId++, "MY", "SG", new BigDecimal("2.345"),
+                OffsetDateTime.now(ZoneOffset.ofHours(8)).truncatedTo(ChronoUnit.MICROS), UUID.randomUUID());
+    }
+
+    private List<TrackingNumberRecord> newRecords(int count) {
+        List<TrackingNumberRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(newRecord());
+        }
+        return records;
+    }
+
+    private static TrackingNumberRecord copyOf(TrackingNumberRecord record) {
+        return new TrackingNumberRecord(record.getId(), record.getOriginCountryId(), record.getDestinationCountryId(),
+                record.getWeight(), record.getOrderCreatedAt(), record.getCustomerId());
+    }
+
+    private void assertFound(List<TrackingNumberRecord> saved) {
+        AtomicLong ids = new AtomicLong();
+        store.forEachId(id -> ids.incrementAndGet());
+        assertEquals(saved.size(), ids.get());
+        for (int i = 0; i < saved.size(); i += 97) {
+            assertSameRecord(saved.get(i), store.findById(saved.get(i).getId()).orElseThrow());
+        }
+        // The last record of the sealed segment and the first of the new one
+        assertSameRecord(saved.get(SEGMENT_CAPACITY - 1), store.findById(saved.get(SEGMENT_CAPACITY - 1).getId()).orElseThrow());
+        assertSameRecord(saved.get(SEGMENT_CAPACITY), store.findById(saved.get(SEGMENT_CAPACITY).getId()).orElseThrow());
+        assertFalse(store.findById(nextId).isPresent());
+    }
+
+    private static void assertSameRecord(TrackingNumberRecord expected, TrackingNumberRecord actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getOriginCountryId(), actual.getOriginCountryId());
+        assertEquals(expected.getDestinationCountryId(), actual.getDestinationCountryId());
+        assertEquals(0, expected.getWeight().compareTo(actual.getWeight()));
+        assertEquals(expected.getOrderCreatedAt(), actual.getOrderCreatedAt());
+        assertEquals(expected.getCustomerId(), actual.getCustomerId());
+        assertEquals(expected.getGeneratedAt(), actual.getGeneratedAt());
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.toList();
+            assertEquals(1, segments.size(), segments::toString);
+            return segments.get(0);
+        }
+    }
+
+    private static int offsetOf(int slot) {
+        return JournalTrackingNumberStore.RECORD_SIZE + slot * JournalTrackingNumberStore.RECORD_SIZE;
+    }
+
+    private static void flipByte(Path segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) (value.get(0) ^ 0x5A));
+            value.rewind();
+            channel.write(value, position);
+        }
+    }
+}
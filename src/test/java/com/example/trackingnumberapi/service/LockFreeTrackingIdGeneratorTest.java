@@ -0,0 +1,113 @@
+package com.example.trackingnumberapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The single-threaded tests stop the clock and let the generator borrow the following milliseconds, so every rollover
+ * happens at a known ID. The concurrent test uses a clock running 10 times slower than real time, so the 4096 sequence
+ * values of a millisecond run out long before it ticks and callers wait for the next millisecond (the STRICT default).
+ */
+class LockFreeTrackingIdGeneratorTest {
+
+    private static final long START_MS = TrackingIdGenerator.CUSTOM_EPOCH_MS + 1_000_000L;
+
+    @Test
+    void sequenceRolloverMovesToTheNextMillisecond() {
+        LockFreeTrackingIdGenerator generator = newGeneratorWithStoppedClock();
+        long previous = generator.nextId();
+        for (int i = 0; i < 3 * 4096; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            if (generator.getSequenceFromId(id) == 0) {
+                assertEquals(TrackingIdGenerator.MAX_SEQUENCE, generator.getSequenceFromId(previous));
+                assertEquals(generator.getTimestampFromId(previous) + 1, generator.getTimestampFromId(id));
+            }
+            previous = id;
+        }
+        assertEquals(3, generator.getSequenceExhaustedCount());
+        assertEquals(START_MS + 3, generator.getTimestampFromId(previous));
+    }
+
+    @Test
+    void batchesSpanningARolloverStayIncreasing() {
+        LockFreeTrackingIdGenerator generator = newGeneratorWithStoppedClock();
+        generator.nextIds(4000);
+        long[] ids = generator.nextIds(10_000); // 96 left in the first millisecond, then two more rollovers
+        assertIncreasing(ids);
+        assertEquals(TrackingIdGenerator.MAX_SEQUENCE, generator.getSequenceFromId(ids[95]));
+        assertEquals(0, generator.getSequenceFromId(ids[96]));
+        assertEquals(generator.getTimestampFromId(ids[95]) + 1, generator.getTimestampFromId(ids[96]));
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIdsThatIncreasePerThread() throws Exception {
+        long startNanos = System.nanoTime();
+        LockFreeTrackingIdGenerator generator = new LockFreeTrackingIdGenerator(1);
+        generator.setClock(() -> START_MS + (System.nanoTime() - startNanos) / 10_000_000L);
+        int threads = 8;
+        int idsPerThread = 25_000;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean batched = t % 2 == 0;
+                results.add(executor.submit(() -> {
+                    barrier.await();
+                    long[] ids = new long[idsPerThread];
+                    for (int i = 0; i < idsPerThread; ) {
+                        if (batched) {
+                            long[] batch = generator.nextIds(Math.min(100, idsPerThread - i));
+                            System.arraycopy(batch, 0, ids, i, batch.length);
+                            i += batch.length;
+                        } else {
+                            ids[i++] = generator.nextId();
+                        }
+                    }
+                    return ids;
+                }));
+            }
+
+            Set<Long> unique = new HashSet<>();
+            for (Future<long[]> result : results) {
+                long[] ids = result.get();
+                assertIncreasing(ids);
+                for (long id : ids) {
+                    unique.add(id);
+                }
+            }
+            assertEquals(threads * idsPerThread, unique.size());
+            assertTrue(generator.getSequenceExhaustedCount() > 0);
+            assertEquals(1, generator.getWorkerIdFromId(Collections.max(unique)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static LockFreeTrackingIdGenerator newGeneratorWithStoppedClock() {
+        LockFreeTrackingIdGenerator generator = new LockFreeTrackingIdGenerator(1);
+        generator.setClock(() -> START_MS);
+        generator.setClockRegressionTolerance(ClockRegressionMode.BORROW, 1000);
+        return generator;
+    }
+
+    private static void assertIncreasing(long[] ids) {
+        for (int i = 1; i < ids.length; i++) {
+            int index = i;
+            assertTrue(ids[i] > ids[i - 1], () -> "ID " + index + ": " + ids[index - 1] + " then " + ids[index]);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.trackingnumberapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PreMintedIdBufferTest {
+
+    private static final long MAX_AGE_MS = 1000;
+
+    private final TrackingIdGenerator idGenerator = new TrackingIdGenerator(1);
+    private final PreMintedIdBuffer buffer = new PreMintedIdBuffer(idGenerator, 64, 16, 48, MAX_AGE_MS);
+
+    @AfterEach
+    void stopBuffer() throws InterruptedException {
+        buffer.stop();
+    }
+
+    @Test
+    void emptyBufferReturnsMinusOneSoCallersFallBackToTheGenerator() {
+        // The producer is not started, so nothing is ever buffered
+        assertEquals(-1, buffer.poll());
+        assertEquals(-1, buffer.poll());
+        assertEquals(2, buffer.getMissCount());
+        assertEquals(0, buffer.getHitCount());
+    }
+
+    @Test
+    void servesFreshIdsAndRefillsBelowTheLowWatermark() throws InterruptedException {
+        buffer.start();
+        awaitTrue(() -> buffer.size() == 48);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            long id = buffer.poll();
+            if (id < 0) {
+                id = idGenerator.nextId(); // Same fallback as the service while the producer catches up
+            }
+            assertTrue(ids.add(id), "duplicate ID " + id);
+        }
+        assertTrue(buffer.getHitCount() >= 32, () -> "hits: " + buffer.getHitCount());
+        awaitTrue(() -> buffer.size() >= 16);
+    }
+
+    @Test
+    void staleIdsAreDiscardedInsteadOfHandedOut() throws InterruptedException {
+        // Every ID the producer mints is already older than the maximum age
+        idGenerator.setClock(() -> System.currentTimeMillis() - 10 * MAX_AGE_MS);
+        buffer.start();
+        awaitTrue(() -> buffer.getDiscardedCount() >= 48);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(-1, buffer.poll());
+        }
+        assertEquals(0, buffer.getHitCount());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.model.repository.TrackingNumberArchiveRepository;
+import com.example.trackingnumberapi.model.repository.TrackingNumberRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrackingNumberRetentionServiceTest {
+
+    private final TrackingNumberRecordRepository repository = mock(TrackingNumberRecordRepository.class);
+    private final CountDownLatch runStarted = new CountDownLatch(1);
+    private final CountDownLatch finishRun = new CountDownLatch(1);
+    private final AtomicInteger runs = new AtomicInteger();
+    private final TrackingNumberRetentionService retentionService = new TrackingNumberRetentionService(
+            new TrackingIdGenerator(1), repository, mock(TrackingNumberArchiveRepository.class),
+            mock(PlatformTransactionManager.class), 365, "purge", 100, 0, 1.0);
+
+    TrackingNumberRetentionServiceTest() {
+        // Each run blocks in its first query until the test lets it finish
+        when(repository.findIdsBetween(anyLong(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            runs.incrementAndGet();
+            runStarted.countDown();
+            finishRun.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+    }
+
+    @Test
+    void concurrentStartsBeginExactlyOneRun() throws Exception {
+        int callers = 64;
+        CyclicBarrier barrier = new CyclicBarrier(callers);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Boolean>> results = executor.invokeAll(Collections.nCopies(callers, () -> {
+                barrier.await();
+                return retentionService.startAsync();
+            }));
+            int started = 0;
+            for (Future<Boolean> result : results) {
+                started += result.get() ? 1 : 0;
+            }
+            assertEquals(1, started);
+            assertTrue(runStarted.await(10, TimeUnit.SECONDS));
+            assertFalse(retentionService.run(), "a run is still in progress");
+        } finally {
+            finishRun.countDown();
+            executor.shutdownNow();
+        }
+        waitUntilIdle();
+        assertEquals(1, runs.get());
+        assertTrue(retentionService.run(), "the flag is released when the run ends");
+    }
+
+    private void waitUntilIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (retentionService.getStatus().isRunning() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(retentionService.getStatus().isRunning());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.trackingnumberapi.service;
+
+import com.example.trackingnumberapi.TrackingNumberApiApplication;
+import com.example.trackingnumberapi.model.repository.WorkerLeaseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.NestedExceptionUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts several application instances on one shared in-memory database and checks how they divide the worker IDs.
+ * The striped generator with 512 lanes leaves only worker IDs 0 and 1, so the third instance has to take over a lease.
+ * The heartbeat is long enough not to run during a test; tests call {@link WorkerLeaseManager#renew} themselves.
+ */
+class WorkerLeaseManagerIntegrationTest {
+
+    private final String datasourceUrl = "jdbc:h2:mem:lease-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER";
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+
+    @AfterEach
+    void stopInstances() {
+        instances.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void instancesClaimDistinctWorkerIds() {
+        ConfigurableApplicationContext first = startInstance();
+        ConfigurableApplicationContext second = startInstance();
+
+        long firstWorkerId = first.getBean(WorkerLeaseManager.class).getWorkerId();
+        long secondWorkerId = second.getBean(WorkerLeaseManager.class).getWorkerId();
+        assertNotEquals(firstWorkerId, secondWorkerId);
+
+        TrackingIdGenerator firstGenerator = first.getBean(TrackingIdGenerator.class);
+        TrackingIdGenerator secondGenerator = second.getBean(TrackingIdGenerator.class);
+        assertEquals(firstWorkerId, firstGenerator.getWorkerId());
+        assertEquals(secondWorkerId, secondGenerator.getWorkerId());
+        assertNotEquals(firstGenerator.nextId(), secondGenerator.nextId());
+
+        Exception noFreeWorkerId = assertThrows(Exception.class, this::startInstance);
+        assertTrue(NestedExceptionUtils.getMostSpecificCause(noFreeWorkerId).getMessage().startsWith("No free worker ID"),
+                noFreeWorkerId::toString);
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndFencesTheFormerHolder() {
+        ConfigurableApplicationContext stalled = startInstance();
+        startInstance();
+
+        WorkerLeaseManager stalledLease = stalled.getBean(WorkerLeaseManager.class);
+        TrackingIdGenerator stalledGenerator = stalled.getBean(TrackingIdGenerator.class);
+        stalledGenerator.nextId();
+
+        // The stalled instance missed its renewals until the lease expired
+        stalled.getBean(WorkerLeaseRepository.class).updateExpiry((int) stalledLease.getWorkerId(),
+                stalledLease.getOwnerId(), Instant.now().minusSeconds(1));
+
+        ConfigurableApplicationContext successor = startInstance();
+        WorkerLeaseManager successorLease = successor.getBean(WorkerLeaseManager.class);
+        assertEquals(stalledLease.getWorkerId(), successorLease.getWorkerId());
+        assertNotEquals(stalledLease.getOwnerId(), successorLease.getOwnerId());
+        successor.getBean(TrackingIdGenerator.class).nextId();
+
+        // Its next heartbeat finds the lease taken over
+        stalledLease.renew();
+        assertThrows(WorkerLeaseExpiredException.class, stalledGenerator::nextId);
+        assertThrows(WorkerLeaseExpiredException.class, () -> stalledGenerator.nextIds(10));
+        assertEquals(ReadinessState.REFUSING_TRAFFIC, stalled.getBean(ApplicationAvailability.class).getReadinessState());
+    }
+
+    @Test
+    void generatorStopsAtTheLeaseFence() {
+        ConfigurableApplicationContext instance = startInstance();
+        TrackingIdGenerator generator = instance.getBean(TrackingIdGenerator.class);
+
+        generator.setLeaseValidUntil(System.currentTimeMillis() - 1);
+        assertThrows(WorkerLeaseExpiredException.class, generator::nextId);
+
+        // A successful renewal moves the fence forward again
+        instance.getBean(WorkerLeaseManager.class).renew();
+        generator.nextId();
+    }
+
+    private ConfigurableApplicationContext startInstance() {
+        ConfigurableApplicationContext instance = new SpringApplicationBuilder(TrackingNumberApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=" + datasourceUrl,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--tracking.generator.mode=striped",
+                        "--tracking.generator.lanes=512",
+                        "--tracking.worker.lease.enabled=true",
+                        "--tracking.worker.lease.duration-ms=120000",
+                        "--tracking.worker.lease.heartbeat-interval-ms=60000",
+                        "--tracking.worker.lease.max-clock-skew-ms=100");
+        instances.add(instance);
+        return instance;
+    }
+}